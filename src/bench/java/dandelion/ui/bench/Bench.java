@@ -0,0 +1,50 @@
+package dandelion.ui.bench;
+
+import java.util.Arrays;
+
+/**
+ * 性能测试的公共工具，测试类都是带main方法的普通程序，不依赖测试框架，
+ * 可以直接用java命令运行，也可以在修改前后的代码上分别运行进行对比。
+ *
+ * @author Ketuer
+ * @since 1.2
+ */
+final class Bench {
+    private Bench(){ }
+
+    /**
+     * 多次执行任务，返回耗时的中位数
+     * @param warmup 预热次数，不计入结果
+     * @param runs 计时次数
+     * @param task 任务
+     * @return 毫秒数
+     */
+    static double median(int warmup, int runs, Runnable task){
+        for (int i = 0; i < warmup; i++) task.run();
+        double[] times = new double[runs];
+        for (int i = 0; i < runs; i++){
+            long start = System.nanoTime();
+            task.run();
+            times[i] = (System.nanoTime() - start) / 1e6;
+        }
+        Arrays.sort(times);
+        return times[runs / 2];
+    }
+
+    /**
+     * 多次GC后获取已使用的堆内存
+     * @return 字节数
+     */
+    static long usedMemory(){
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 5; i++){
+            System.gc();
+            try {
+                Thread.sleep(50);
+            }catch (InterruptedException e){
+                Thread.currentThread().interrupt();
+            }
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
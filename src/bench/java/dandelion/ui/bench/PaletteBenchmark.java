@@ -0,0 +1,56 @@
+package dandelion.ui.bench;
+
+import dandelion.ui.component.*;
+
+import javax.swing.*;
+import javax.swing.tree.DefaultMutableTreeNode;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * 组件内存占用测试：每种组件创建一批实例并保持引用，按GC后的堆内存差值
+ * 计算每个实例占用的字节数和平均创建耗时。只使用1.0版本就存在的构造方法，
+ * 可以在修改前后的代码上分别运行进行对比。
+ *
+ * @author Ketuer
+ * @since 1.2
+ */
+public class PaletteBenchmark {
+    private static final int COUNT = 5000;
+
+    public static void main(String[] args) throws Exception {
+        SwingUtilities.invokeAndWait(PaletteBenchmark::run);
+    }
+
+    private static void run(){
+        Image image = new BufferedImage(16, 16, BufferedImage.TYPE_INT_ARGB);
+        Map<String, Supplier<Component>> components = new LinkedHashMap<>();
+        components.put("DButton", () -> new DButton("button"));
+        components.put("DLabel", () -> new DLabel("label"));
+        components.put("DTable", DTable::new);
+        components.put("DList", () -> new DList<String>(100, 100));
+        components.put("DTree", () -> new DTree(new DefaultMutableTreeNode("root"), 100, 100));
+        components.put("DScroll", () -> new DScroll(100, 100, null));
+        components.put("DSelect", () -> new DSelect<String>(100, 30));
+        components.put("DImage", () -> new DImage(16, 16, image));
+        components.put("DProgress", () -> new DProgress(100, 10));
+        components.put("DTextField", () -> new DTextField(100, 30));
+        components.put("DPanel", DPanel::new);
+        for (Map.Entry<String, Supplier<Component>> entry : components.entrySet()){
+            Supplier<Component> supplier = entry.getValue();
+            for (int i = 0; i < 500; i++) supplier.get();
+            Component[] holder = new Component[COUNT];
+            long before = Bench.usedMemory();
+            long start = System.nanoTime();
+            for (int i = 0; i < COUNT; i++) holder[i] = supplier.get();
+            long elapsed = System.nanoTime() - start;
+            long after = Bench.usedMemory();
+            System.out.printf("%-10s %8d 字节/个  %6.2f 微秒/个%n", entry.getKey(),
+                    (after - before) / COUNT, elapsed / 1e3 / COUNT);
+            if(holder[COUNT - 1] == null) throw new IllegalStateException();
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package dandelion.ui.bench;
+
+import dandelion.ui.color.ColorConfig;
+import dandelion.ui.color.ColorSwitch;
+import dandelion.ui.component.DLabel;
+import dandelion.ui.component.DPanel;
+import dandelion.ui.gui.SwitchRegistry;
+
+import javax.swing.*;
+
+/**
+ * 颜色和语言切换的性能测试：100个面板中各放100个标签，共10000个组件，
+ * 分别测试由容器逐层递归切换和通过订阅表一次遍历切换的耗时。
+ *
+ * <p>
+ * 组件不会显示，可以加上 -Djava.awt.headless=true 在没有图形界面的环境中运行。
+ *
+ * @author Ketuer
+ * @since 1.2
+ */
+public class SwitchBenchmark {
+    private static final int PANELS = 100;
+    private static final int LABELS = 100;
+
+    public static void main(String[] args) throws Exception {
+        SwingUtilities.invokeAndWait(SwitchBenchmark::run);
+    }
+
+    private static void run(){
+        DPanel root = new DPanel();
+        for (int i = 0; i < PANELS; i++){
+            DPanel panel = new DPanel();
+            for (int j = 0; j < LABELS; j++) panel.add(new DLabel("label " + j));
+            root.add(panel);
+        }
+        SwitchRegistry registry = new SwitchRegistry();
+        registry.track(root);
+        System.out.println("组件数量：" + (PANELS * LABELS + PANELS + 1) + "，订阅者：" + registry.getSubscribers().size());
+
+        ColorConfig[] configs = {ColorSwitch.DARK, ColorSwitch.LIGHT};
+        int[] index = {0};
+        double recursive = Bench.median(10, 31, () -> root.switchColor(configs[index[0]++ & 1]));
+        double flat = Bench.median(10, 31, () -> {
+            registry.switchColor(configs[index[0]++ & 1]);
+            root.repaint();
+        });
+        String[] languages = {"en", "zh"};
+        double language = Bench.median(10, 31, () -> {
+            registry.switchLanguage(languages[index[0]++ & 1]);
+            root.repaint();
+        });
+        System.out.printf("颜色切换（容器递归）：%.2f ms%n", recursive);
+        System.out.printf("颜色切换（订阅表）：%.2f ms%n", flat);
+        System.out.printf("语言切换（订阅表）：%.2f ms%n", language);
+    }
+}
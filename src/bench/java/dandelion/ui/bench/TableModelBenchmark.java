@@ -0,0 +1,71 @@
+package dandelion.ui.bench;
+
+import dandelion.ui.component.ColumnTableModel;
+import dandelion.ui.component.DTable;
+
+import javax.swing.*;
+
+/**
+ * 表格数据模型的加载时间和内存占用测试：加载200万行行情数据（int、long、
+ * double和只有5种取值的字符串各一列），分别通过 {@link DTable#setData}
+ * 和 {@link DTable#setColumnData} 加载，比较耗时和加载后占用的堆内存。
+ *
+ * <p>
+ * 建议使用 -Xmx4g 运行，可以通过参数指定行数。
+ *
+ * @author Ketuer
+ * @since 1.2
+ */
+public class TableModelBenchmark {
+    private static final String[] SYMBOLS = {"AAPL", "MSFT", "GOOG", "AMZN", "TSLA"};
+    private static final Object[] NAMES = {"id", "time", "price", "symbol"};
+
+    public static void main(String[] args) throws Exception {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+        SwingUtilities.invokeAndWait(() -> {
+            measure("DefaultTableModel", rows, TableModelBenchmark::loadDefault);
+            measure("ColumnTableModel", rows, TableModelBenchmark::loadColumns);
+        });
+    }
+
+    private static void measure(String name, int rows, Loader loader){
+        long before = Bench.usedMemory();
+        long start = System.nanoTime();
+        DTable table = loader.load(rows);
+        long elapsed = (System.nanoTime() - start) / 1_000_000;
+        long retained = Bench.usedMemory() - before;
+        System.out.printf("%-18s 行数 %d，加载 %d ms，占用 %d MB%n", name, table.getRowCount(), elapsed, retained / 1024 / 1024);
+    }
+
+    private static DTable loadDefault(int rows){
+        Object[][] data = new Object[rows][];
+        for (int i = 0; i < rows; i++)
+            data[i] = new Object[]{i, 1_600_000_000_000L + i, 100 + i * 0.01, SYMBOLS[i % SYMBOLS.length]};
+        DTable table = new DTable();
+        table.setData(data, NAMES);
+        return table;
+    }
+
+    private static DTable loadColumns(int rows){
+        ColumnTableModel model = new ColumnTableModel();
+        model.addColumn("id", ColumnTableModel.INT);
+        model.addColumn("time", ColumnTableModel.LONG);
+        model.addColumn("price", ColumnTableModel.DOUBLE);
+        model.addColumn("symbol", ColumnTableModel.STRING);
+        int first = model.addRows(rows);
+        for (int i = 0; i < rows; i++){
+            int row = first + i;
+            model.setInt(row, 0, i);
+            model.setLong(row, 1, 1_600_000_000_000L + i);
+            model.setDouble(row, 2, 100 + i * 0.01);
+            model.setString(row, 3, SYMBOLS[i % SYMBOLS.length]);
+        }
+        DTable table = new DTable();
+        table.setColumnData(model);
+        return table;
+    }
+
+    private interface Loader{
+        DTable load(int rows);
+    }
+}
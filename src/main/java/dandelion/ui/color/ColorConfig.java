@@ -1,7 +1,9 @@
 package dandelion.ui.color;
 
 import java.awt.*;
-import java.util.Objects;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * 配色方案，告诉对应的ColorSwitch实现类即可实现颜色切换。
@@ -9,14 +11,30 @@ import java.util.Objects;
  * 称不允许相同！
  */
 public class ColorConfig {
+    private static final Map<String, Integer> ordinals = new ConcurrentHashMap<>();
+    private static final AtomicInteger counter = new AtomicInteger();
+
     private final String name;
     private final Color background;
+    private final int ordinal;
 
     public ColorConfig(String name, Color background){
         if(name == null || background == null)
             throw new NullPointerException("颜色配置名称和颜色不能为空！");
         this.name = name;
         this.background = background;
+        this.ordinal = ordinals.computeIfAbsent(name, n -> counter.getAndIncrement());
+    }
+
+    /**
+     * 配色方案的序号，同名的配色方案序号相同，序号从0开始连续分配，
+     * 用于在{@link Palette}中直接通过下标查找。
+     * @return 序号
+     *
+     * @since 1.2
+     */
+    public int ordinal() {
+        return ordinal;
     }
 
     public String getName() {
@@ -38,4 +56,9 @@ public class ColorConfig {
         ColorConfig that = (ColorConfig) o;
         return name.equals(that.name);
     }
+
+    @Override
+    public int hashCode() {
+        return name.hashCode();
+    }
 }
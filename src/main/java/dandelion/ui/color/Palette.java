@@ -0,0 +1,52 @@
+package dandelion.ui.color;
+
+import java.util.Arrays;
+
+/**
+ * 不可变的调色板，按照配色方案的序号保存组件的颜色配置。同一类组件的
+ * 所有实例共用一份默认调色板，只有为某个实例注册了颜色配置时，该实例
+ * 才会拥有自己的调色板。
+ *
+ * @param <T> 颜色配置类型
+ *
+ * @author Ketuer
+ * @since 1.2
+ */
+public final class Palette<T> {
+    private static final Palette<?> EMPTY = new Palette<>(new Object[0]);
+
+    private final Object[] entries;
+
+    private Palette(Object[] entries){
+        this.entries = entries;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <T> Palette<T> empty(){
+        return (Palette<T>) EMPTY;
+    }
+
+    /**
+     * 获取配色方案对应的颜色配置。
+     * @param config 配色方案
+     * @return 颜色配置，未注册时返回null
+     */
+    @SuppressWarnings("unchecked")
+    public T get(ColorConfig config){
+        int ordinal = config.ordinal();
+        return ordinal < entries.length ? (T) entries[ordinal] : null;
+    }
+
+    /**
+     * 创建一个新的调色板，包含当前所有颜色配置以及新的颜色配置。
+     * @param config 配色方案
+     * @param value 颜色配置
+     * @return 新的调色板
+     */
+    public Palette<T> with(ColorConfig config, T value){
+        int ordinal = config.ordinal();
+        Object[] entries = Arrays.copyOf(this.entries, Math.max(this.entries.length, ordinal + 1));
+        entries[ordinal] = value;
+        return new Palette<>(entries);
+    }
+}
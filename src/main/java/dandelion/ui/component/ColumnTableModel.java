@@ -0,0 +1,727 @@
+package dandelion.ui.component;
+
+import javax.swing.table.AbstractTableModel;
+import java.util.*;
+import java.util.stream.IntStream;
+
+/**
+ * 按列存储的表格数据模型，适合大量数值数据。每一列使用基本类型的数组保存，
+ * 字符串列按字典编码，相同的字符串只保存一份，不会像DefaultTableModel一样
+ * 为每个单元格创建包装对象。数组按固定大小的块增长，添加数据时不需要复制
+ * 已有的数据。
+ *
+ * <p>
+ * 通过getInt、getDouble等方法可以直接读取基本类型的值，不会产生装箱。
+ * 批量加载数据时，先用 {@link #addRows(int)} 一次性添加所有行，再用
+ * setInt、setDouble等方法填充，这些方法不会逐个单元格触发表格事件。
+ *
+ * <p>
+ * 删除最前面的行时只会移动起始位置，并整块释放已经不再使用的数组，
+ * 配合 {@link DTable#appendRow(Object...)} 可以作为只保留最近N行的环形缓冲使用。
+ * 字符串列的字典中不再使用的字符串超过剩余行数时会被压缩掉，即使每一行的
+ * 字符串都不相同（例如编号、时间），占用的内存也只与保留的行数有关。
+ *
+ * @author Ketuer
+ * @since 1.2
+ */
+public class ColumnTableModel extends AbstractTableModel {
+
+    public static final int INT = 0;
+    public static final int LONG = 1;
+    public static final int DOUBLE = 2;
+    public static final int STRING = 3;
+
+    private static final int CHUNK_BITS = 12;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+    //字典中的字符串少于这个数量时不压缩
+    private static final int COMPACT_THRESHOLD = CHUNK_SIZE;
+
+    //后台线程中正在读取的快照，见 {@link #read(Runnable)}
+    private static final ThreadLocal<ColumnTableModel> PINNED = new ThreadLocal<>();
+
+    private final List<Column> columns = new ArrayList<>();
+    //快照对应的数据模型，不是快照时为null
+    private final ColumnTableModel source;
+    private int rowCount = 0;
+    //第0行在数组中的实际位置，删除最前面的行时增加
+    private int offset = 0;
+    private boolean editable = false;
+
+    public ColumnTableModel(){
+        this.source = null;
+    }
+
+    private ColumnTableModel(ColumnTableModel source){
+        this.source = source;
+        for (Column column : source.columns) this.columns.add(column.freeze());
+        this.rowCount = source.rowCount;
+        this.offset = source.offset;
+        this.editable = source.editable;
+    }
+
+    /**
+     * 创建当前数据的只读快照，只能在EDT中调用。快照与数据模型共享已有的数组，
+     * 数据模型之后的添加、删除和压缩都会写入新的数组，不会影响快照，因此可以在
+     * 其他线程中读取快照，只有直接修改已有单元格的值时快照中也会看到新的值。
+     * @return 快照
+     */
+    ColumnTableModel snapshot(){
+        return new ColumnTableModel(this);
+    }
+
+    /**
+     * 在当前线程中执行任务，任务中通过原数据模型读取的数据都来自这个快照，
+     * 用于在后台线程中调用读取数据模型的筛选条件
+     * @param task 任务
+     */
+    void read(Runnable task){
+        ColumnTableModel previous = PINNED.get();
+        PINNED.set(this);
+        try {
+            task.run();
+        }finally {
+            if(previous == null) PINNED.remove();
+            else PINNED.set(previous);
+        }
+    }
+
+    /**
+     * 当前线程正在读取这个数据模型的快照时返回快照
+     */
+    private ColumnTableModel pinned(){
+        ColumnTableModel pinned = PINNED.get();
+        return pinned != null && pinned.source == this ? pinned : null;
+    }
+
+    /**
+     * 添加一列，已有的行在这一列中为0或者null
+     * @param name 列名
+     * @param type 列类型，INT、LONG、DOUBLE或STRING
+     */
+    public void addColumn(String name, int type){
+        Column column;
+        switch (type){
+            case INT: column = new IntColumn(name); break;
+            case LONG: column = new LongColumn(name); break;
+            case DOUBLE: column = new DoubleColumn(name); break;
+            case STRING: column = new StringColumn(name); break;
+            default: throw new IllegalArgumentException("错误的列类型："+type);
+        }
+        column.ensureCapacity(offset + rowCount);
+        columns.add(column);
+        this.fireTableStructureChanged();
+    }
+
+    /**
+     * 添加一行数据
+     * @param values 每一列的值，数量必须与列数相同
+     * @return 新行的序号
+     */
+    public int addRow(Object... values){
+        if(values.length != columns.size()) throw new IllegalArgumentException("数据数量与列数不一致！");
+        int row = rowCount;
+        this.grow(row + 1);
+        for (int i = 0; i < values.length; i++) columns.get(i).setValue(offset + row, values[i]);
+        rowCount = row + 1;
+        this.fireTableRowsInserted(row, row);
+        return row;
+    }
+
+    /**
+     * 一次添加多行数据，只触发一次表格事件
+     * @param rows 每一行的数据，数量必须与列数相同
+     * @return 第一个新行的序号
+     *
+     * @see DTable#appendRow(Object...)
+     */
+    public int addRows(List<Object[]> rows){
+        int first = rowCount;
+        if(rows.isEmpty()) return first;
+        for (Object[] values : rows){
+            if(values.length != columns.size()) throw new IllegalArgumentException("数据数量与列数不一致！");
+        }
+        this.grow(first + rows.size());
+        for (int r = 0; r < rows.size(); r++){
+            Object[] values = rows.get(r);
+            for (int i = 0; i < values.length; i++) columns.get(i).setValue(offset + first + r, values[i]);
+        }
+        rowCount = first + rows.size();
+        this.fireTableRowsInserted(first, rowCount - 1);
+        return first;
+    }
+
+    /**
+     * 删除最前面的若干行，只触发一次表格事件
+     * @param count 行数
+     */
+    public void removeFirstRows(int count){
+        if(count < 0 || count > rowCount) throw new IndexOutOfBoundsException("行数超出范围："+count);
+        if(count == 0) return;
+        offset += count;
+        rowCount -= count;
+        int drop = offset >>> CHUNK_BITS;
+        if(drop > 0){
+            for (Column column : columns) column.drop(drop);
+            offset -= drop << CHUNK_BITS;
+        }
+        for (Column column : columns) column.compact(offset, rowCount);
+        this.fireTableRowsDeleted(0, count - 1);
+    }
+
+    /**
+     * 一次性添加多行，新行的值为0或者null，只触发一次表格事件
+     * @param count 行数
+     * @return 第一个新行的序号
+     */
+    public int addRows(int count){
+        if(count < 0) throw new IllegalArgumentException("行数不能为负数！");
+        int first = rowCount;
+        if(count == 0) return first;
+        this.grow(first + count);
+        rowCount = first + count;
+        this.fireTableRowsInserted(first, rowCount - 1);
+        return first;
+    }
+
+    /**
+     * 清空所有行，保留列
+     */
+    public void clear(){
+        int count = rowCount;
+        if(count == 0) return;
+        for (Column column : columns) column.clear();
+        rowCount = 0;
+        offset = 0;
+        this.fireTableRowsDeleted(0, count - 1);
+    }
+
+    private void grow(int rows){
+        for (Column column : columns) column.ensureCapacity(offset + rows);
+    }
+
+    public int getColumnType(int column){
+        return columns.get(column).type();
+    }
+
+    public int getInt(int row, int column){
+        ColumnTableModel pinned = this.pinned();
+        if(pinned != null) return pinned.getInt(row, column);
+        return this.column(column, IntColumn.class, row).get(offset + row);
+    }
+
+    public long getLong(int row, int column){
+        ColumnTableModel pinned = this.pinned();
+        if(pinned != null) return pinned.getLong(row, column);
+        return this.column(column, LongColumn.class, row).get(offset + row);
+    }
+
+    public double getDouble(int row, int column){
+        ColumnTableModel pinned = this.pinned();
+        if(pinned != null) return pinned.getDouble(row, column);
+        return this.column(column, DoubleColumn.class, row).get(offset + row);
+    }
+
+    public String getString(int row, int column){
+        ColumnTableModel pinned = this.pinned();
+        if(pinned != null) return pinned.getString(row, column);
+        return this.column(column, StringColumn.class, row).get(offset + row);
+    }
+
+    /**
+     * 设置int列的值，不会触发表格事件，修改已经显示的数据后请调用
+     * fireTableRowsUpdated等方法通知表格
+     */
+    public void setInt(int row, int column, int value){
+        this.column(column, IntColumn.class, row).set(offset + row, value);
+    }
+
+    public void setLong(int row, int column, long value){
+        this.column(column, LongColumn.class, row).set(offset + row, value);
+    }
+
+    public void setDouble(int row, int column, double value){
+        this.column(column, DoubleColumn.class, row).set(offset + row, value);
+    }
+
+    public void setString(int row, int column, String value){
+        this.column(column, StringColumn.class, row).set(offset + row, value);
+    }
+
+    private <T extends Column> T column(int column, Class<T> type, int row){
+        this.checkRow(row);
+        Column c = columns.get(column);
+        if(!type.isInstance(c)) throw new IllegalArgumentException("第 "+column+" 列的类型不匹配！");
+        return type.cast(c);
+    }
+
+    private void checkRow(int row){
+        if(row < 0 || row >= rowCount) throw new IndexOutOfBoundsException("行号超出范围："+row);
+    }
+
+    public boolean isEditable() {
+        return editable;
+    }
+
+    public void setEditable(boolean editable) {
+        this.editable = editable;
+    }
+
+    @Override
+    public int getRowCount() {
+        ColumnTableModel pinned = this.pinned();
+        return pinned != null ? pinned.rowCount : rowCount;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return columns.size();
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return columns.get(column).name;
+    }
+
+    @Override
+    public Class<?> getColumnClass(int column) {
+        switch (columns.get(column).type()){
+            case INT: return Integer.class;
+            case LONG: return Long.class;
+            case DOUBLE: return Double.class;
+            default: return String.class;
+        }
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        ColumnTableModel pinned = this.pinned();
+        if(pinned != null) return pinned.getValueAt(row, column);
+        this.checkRow(row);
+        return columns.get(column).getValue(offset + row);
+    }
+
+    @Override
+    public void setValueAt(Object value, int row, int column) {
+        this.checkRow(row);
+        columns.get(column).setValue(offset + row, value);
+        this.fireTableCellUpdated(row, column);
+    }
+
+    /**
+     * 把值转换为这一列保存的类型，数值列接受数字和可以解析为数字的字符串，
+     * 供DTable在调用者的线程中提前检查和转换数据
+     * @return 转换后的值
+     * @throws IllegalArgumentException 值无法转换为这一列的类型
+     */
+    Object convert(int column, Object value){
+        try {
+            return columns.get(column).convert(value);
+        }catch (NumberFormatException e){
+            throw new IllegalArgumentException("第 "+column+" 列的值无法转换为数字："+value, e);
+        }
+    }
+
+    /**
+     * 写入单元格的值，不触发表格事件，供DTable批量更新使用
+     */
+    void putValue(int row, int column, Object value){
+        this.checkRow(row);
+        columns.get(column).setValue(offset + row, value);
+    }
+
+    /**
+     * 字符串列每一行的排序序号，序号的大小顺序与字符串的字典序相同，null最小，
+     * 供排序时代替字符串比较，在后台线程中调用时请使用快照
+     * @param column 字符串列
+     * @param rows 行数
+     * @return 每一行的序号
+     */
+    int[] stringRanks(int column, int rows){
+        StringColumn c = this.column(column, StringColumn.class, rows - 1);
+        String[] dictionary = Arrays.copyOf(c.dictionary, c.size);
+        Integer[] order = new Integer[dictionary.length];
+        for (int i = 0; i < order.length; i++) order[i] = i;
+        Arrays.sort(order, Comparator.comparing(code -> dictionary[code]));
+        int[] rank = new int[dictionary.length];
+        for (int i = 0; i < order.length; i++) rank[order[i]] = i;
+        int[] result = new int[rows];
+        int base = offset;
+        IntStream.range(0, rows).parallel().forEach(row -> {
+            int code = c.data[(base + row) >>> CHUNK_BITS][(base + row) & CHUNK_MASK];
+            result[row] = code < 0 || code >= rank.length ? -1 : rank[code];
+        });
+        return result;
+    }
+
+    @Override
+    public boolean isCellEditable(int row, int column) {
+        return editable;
+    }
+
+    private static abstract class Column{
+        final String name;
+        int chunks = 0;
+
+        Column(String name){
+            this.name = name;
+        }
+
+        abstract int type();
+
+        abstract Object getValue(int row);
+
+        abstract void setValue(int row, Object value);
+
+        abstract Object convert(Object value);
+
+        /**
+         * 创建共享现有数组的只读副本，供快照使用
+         */
+        abstract Column freeze();
+
+        /**
+         * 分配新的块，直到可以容纳指定的行数
+         */
+        void ensureCapacity(int rows){
+            int needed = (rows + CHUNK_MASK) >>> CHUNK_BITS;
+            while (chunks < needed) this.allocate(chunks++);
+        }
+
+        abstract void allocate(int chunk);
+
+        /**
+         * 释放最前面的若干块，之后的块向前移动
+         */
+        void drop(int count){
+            Object[] data = this.chunks();
+            System.arraycopy(data, count, data, 0, chunks - count);
+            Arrays.fill(data, chunks - count, chunks, null);
+            chunks -= count;
+        }
+
+        abstract Object[] chunks();
+
+        /**
+         * 删除最前面的行之后调用，释放已删除的行占用的其他内存
+         * @param offset 第0行在数组中的位置
+         * @param rows 剩余的行数
+         */
+        void compact(int offset, int rows){ }
+
+        void clear(){
+            chunks = 0;
+        }
+
+        static <T> T[] grow(T[] array, int chunk){
+            return chunk < array.length ? array : Arrays.copyOf(array, Math.max(8, array.length * 2));
+        }
+    }
+
+    private static class IntColumn extends Column{
+        int[][] data = new int[8][];
+
+        IntColumn(String name){
+            super(name);
+        }
+
+        int get(int row){
+            return data[row >>> CHUNK_BITS][row & CHUNK_MASK];
+        }
+
+        void set(int row, int value){
+            data[row >>> CHUNK_BITS][row & CHUNK_MASK] = value;
+        }
+
+        @Override
+        int type() {
+            return INT;
+        }
+
+        @Override
+        Object getValue(int row) {
+            return this.get(row);
+        }
+
+        @Override
+        void setValue(int row, Object value) {
+            this.set(row, value == null ? 0 : value instanceof Number ? ((Number) value).intValue() : Integer.parseInt(value.toString().trim()));
+        }
+
+        @Override
+        Object convert(Object value) {
+            if(value == null || value instanceof Integer) return value;
+            return value instanceof Number ? (Object) ((Number) value).intValue() : (Object) Integer.parseInt(value.toString().trim());
+        }
+
+        @Override
+        void allocate(int chunk) {
+            data = grow(data, chunk);
+            data[chunk] = new int[CHUNK_SIZE];
+        }
+
+        @Override
+        Object[] chunks() {
+            return data;
+        }
+
+        @Override
+        Column freeze() {
+            IntColumn column = new IntColumn(name);
+            column.data = data.clone();
+            column.chunks = chunks;
+            return column;
+        }
+
+        @Override
+        void clear() {
+            super.clear();
+            data = new int[8][];
+        }
+    }
+
+    private static class LongColumn extends Column{
+        long[][] data = new long[8][];
+
+        LongColumn(String name){
+            super(name);
+        }
+
+        long get(int row){
+            return data[row >>> CHUNK_BITS][row & CHUNK_MASK];
+        }
+
+        void set(int row, long value){
+            data[row >>> CHUNK_BITS][row & CHUNK_MASK] = value;
+        }
+
+        @Override
+        int type() {
+            return LONG;
+        }
+
+        @Override
+        Object getValue(int row) {
+            return this.get(row);
+        }
+
+        @Override
+        void setValue(int row, Object value) {
+            this.set(row, value == null ? 0 : value instanceof Number ? ((Number) value).longValue() : Long.parseLong(value.toString().trim()));
+        }
+
+        @Override
+        Object convert(Object value) {
+            if(value == null || value instanceof Long) return value;
+            return value instanceof Number ? (Object) ((Number) value).longValue() : (Object) Long.parseLong(value.toString().trim());
+        }
+
+        @Override
+        void allocate(int chunk) {
+            data = grow(data, chunk);
+            data[chunk] = new long[CHUNK_SIZE];
+        }
+
+        @Override
+        Object[] chunks() {
+            return data;
+        }
+
+        @Override
+        Column freeze() {
+            LongColumn column = new LongColumn(name);
+            column.data = data.clone();
+            column.chunks = chunks;
+            return column;
+        }
+
+        @Override
+        void clear() {
+            super.clear();
+            data = new long[8][];
+        }
+    }
+
+    private static class DoubleColumn extends Column{
+        double[][] data = new double[8][];
+
+        DoubleColumn(String name){
+            super(name);
+        }
+
+        double get(int row){
+            return data[row >>> CHUNK_BITS][row & CHUNK_MASK];
+        }
+
+        void set(int row, double value){
+            data[row >>> CHUNK_BITS][row & CHUNK_MASK] = value;
+        }
+
+        @Override
+        int type() {
+            return DOUBLE;
+        }
+
+        @Override
+        Object getValue(int row) {
+            return this.get(row);
+        }
+
+        @Override
+        void setValue(int row, Object value) {
+            this.set(row, value == null ? 0 : value instanceof Number ? ((Number) value).doubleValue() : Double.parseDouble(value.toString().trim()));
+        }
+
+        @Override
+        Object convert(Object value) {
+            if(value == null || value instanceof Double) return value;
+            return value instanceof Number ? (Object) ((Number) value).doubleValue() : (Object) Double.parseDouble(value.toString().trim());
+        }
+
+        @Override
+        void allocate(int chunk) {
+            data = grow(data, chunk);
+            data[chunk] = new double[CHUNK_SIZE];
+        }
+
+        @Override
+        Object[] chunks() {
+            return data;
+        }
+
+        @Override
+        Column freeze() {
+            DoubleColumn column = new DoubleColumn(name);
+            column.data = data.clone();
+            column.chunks = chunks;
+            return column;
+        }
+
+        @Override
+        void clear() {
+            super.clear();
+            data = new double[8][];
+        }
+    }
+
+    /**
+     * 字典编码的字符串列，每个单元格只保存字符串在字典中的序号，-1表示null。
+     * 字典只会在末尾追加，扩容和压缩时创建新的数组。
+     */
+    private static class StringColumn extends Column{
+        int[][] data = new int[8][];
+        String[] dictionary = new String[16];
+        int size = 0;
+        Map<String, Integer> codes = new HashMap<>();
+
+        StringColumn(String name){
+            super(name);
+        }
+
+        String get(int row){
+            int code = data[row >>> CHUNK_BITS][row & CHUNK_MASK];
+            //快照创建之后写入的新字符串不在快照的字典中
+            return code < 0 || code >= size ? null : dictionary[code];
+        }
+
+        void set(int row, String value){
+            int code = -1;
+            if(value != null){
+                Integer existing = codes.get(value);
+                if(existing == null){
+                    if(size == dictionary.length) dictionary = Arrays.copyOf(dictionary, size * 2);
+                    dictionary[size] = value;
+                    existing = size++;
+                    codes.put(value, existing);
+                }
+                code = existing;
+            }
+            data[row >>> CHUNK_BITS][row & CHUNK_MASK] = code;
+        }
+
+        @Override
+        int type() {
+            return STRING;
+        }
+
+        @Override
+        Object getValue(int row) {
+            return this.get(row);
+        }
+
+        @Override
+        void setValue(int row, Object value) {
+            this.set(row, value == null ? null : value.toString());
+        }
+
+        @Override
+        Object convert(Object value) {
+            return value == null ? null : value.toString();
+        }
+
+        @Override
+        void allocate(int chunk) {
+            data = grow(data, chunk);
+            data[chunk] = new int[CHUNK_SIZE];
+            Arrays.fill(data[chunk], -1);
+        }
+
+        @Override
+        Object[] chunks() {
+            return data;
+        }
+
+        @Override
+        Column freeze() {
+            StringColumn column = new StringColumn(name);
+            column.data = data.clone();
+            column.chunks = chunks;
+            column.dictionary = dictionary;
+            column.size = size;
+            return column;
+        }
+
+        /**
+         * 字典中的字符串超过剩余行数的两倍时，重新编码剩余的行，只保留仍在使用的
+         * 字符串，每次压缩之后至少要再添加与剩余行数相同数量的新字符串才会再次压缩。
+         * 压缩时写入新的数组，不会修改已有的数组。
+         */
+        @Override
+        void compact(int offset, int rows) {
+            if(size <= Math.max(COMPACT_THRESHOLD, 2L * rows)) return;
+            int[] remap = new int[size];
+            Arrays.fill(remap, -1);
+            String[] compacted = new String[Math.max(16, Math.min(size, rows))];
+            Map<String, Integer> compactedCodes = new HashMap<>();
+            int compactedSize = 0;
+            int[][] compactedData = new int[data.length][];
+            for (int c = 0; c < chunks; c++){
+                int[] source = data[c], target = new int[CHUNK_SIZE];
+                for (int i = 0; i < CHUNK_SIZE; i++){
+                    int row = (c << CHUNK_BITS) + i;
+                    int code = row < offset || row >= offset + rows ? -1 : source[i];
+                    if(code >= 0 && remap[code] < 0){
+                        remap[code] = compactedSize;
+                        compacted[compactedSize] = dictionary[code];
+                        compactedCodes.put(dictionary[code], compactedSize++);
+                    }
+                    target[i] = code < 0 ? -1 : remap[code];
+                }
+                compactedData[c] = target;
+            }
+            data = compactedData;
+            dictionary = compacted;
+            size = compactedSize;
+            codes = compactedCodes;
+        }
+
+        @Override
+        void clear() {
+            super.clear();
+            data = new int[8][];
+            dictionary = new String[16];
+            size = 0;
+            codes = new HashMap<>();
+        }
+    }
+}
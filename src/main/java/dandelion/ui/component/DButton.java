@@ -2,6 +2,7 @@ package dandelion.ui.component;
 
 import dandelion.ui.color.ColorConfig;
 import dandelion.ui.color.ColorSwitch;
+import dandelion.ui.color.Palette;
 import dandelion.ui.lang.LanguageSwitch;
 import dandelion.ui.lang.Text;
 import dandelion.ui.lang.i18n;
@@ -11,10 +12,7 @@ import javax.swing.plaf.basic.BasicButtonUI;
 import java.awt.*;
 import java.awt.event.ActionListener;
 import java.awt.font.FontRenderContext;
-import java.awt.geom.AffineTransform;
 import java.awt.geom.Rectangle2D;
-import java.util.HashMap;
-import java.util.Map;
 
 /**
  * 改进的JButton，更加美观的圆角设计，支持暗黑颜色切换，语言切换等，支持添加Icon，
@@ -26,7 +24,13 @@ import java.util.Map;
  */
 public class DButton extends JButton implements RoundBorder, ColorSwitch, LanguageSwitch {
 
-    private final Map<String, ButtonColorConfig> colorConfigMap = new HashMap<>();
+    private static final Palette<ButtonColorConfig> DEFAULT_PALETTE = Palette.<ButtonColorConfig>empty()
+            .with(ColorSwitch.LIGHT, new ButtonColorConfig(Color.white, new Color(231, 231, 231),
+                    new Color(226, 226, 226), Color.black, new Color(222, 222, 222)))
+            .with(ColorSwitch.DARK, new ButtonColorConfig(new Color(83, 83, 83),
+                    new Color(147, 147, 147), new Color(104, 104, 104),
+                    new Color(230, 230, 230), new Color(137, 137, 137)));
+    private Palette<ButtonColorConfig> palette = DEFAULT_PALETTE;
     private int arc = 10;
     private Text rawText;
     private String language = i18n.getDefaultLanguage();
@@ -49,12 +53,7 @@ public class DButton extends JButton implements RoundBorder, ColorSwitch, Langua
         this.setUI(new DButtonUI());
         this.setOpaque(false);
         this.setFont(defaultFont);
-        ButtonColorConfig def = new ButtonColorConfig(Color.white, new Color(231, 231, 231),
-                new Color(226, 226, 226), Color.black, new Color(222, 222, 222));
-        this.registerColorConfig(ColorSwitch.LIGHT, def);
-        this.registerColorConfig(ColorSwitch.DARK, new ButtonColorConfig(new Color(83, 83, 83),
-                new Color(147, 147, 147), new Color(104, 104, 104),
-                new Color(230, 230, 230), new Color(137, 137, 137)));
+        ButtonColorConfig def = DEFAULT_PALETTE.get(ColorSwitch.LIGHT);
         this.resetColor(def);
         this.setBorder(null);
         this.defaultSize(false);
@@ -116,12 +115,17 @@ public class DButton extends JButton implements RoundBorder, ColorSwitch, Langua
      * @since 1.1
      */
     public ButtonColorConfig getColorConfig(ColorConfig config){
-        return colorConfigMap.get(config.getName());
+        ButtonColorConfig colorConfig = palette.get(config);
+        if(colorConfig != null && colorConfig == DEFAULT_PALETTE.get(config)){
+            colorConfig = new ButtonColorConfig(colorConfig);
+            this.palette = palette.with(config, colorConfig);
+        }
+        return colorConfig;
     }
 
     @Override
     public void switchColor(ColorConfig config) {
-        ButtonColorConfig buttonColorConfig = colorConfigMap.get(config.getName());
+        ButtonColorConfig buttonColorConfig = palette.get(config);
         if(buttonColorConfig == null)
             throw new UnsupportedOperationException("未发现此配色方案的配置文件，请先为此实例注册配置文件！");
         Icon icon = this.getIcon();
@@ -144,12 +148,21 @@ public class DButton extends JButton implements RoundBorder, ColorSwitch, Langua
         super.setText(i18n.format(rawText, language));
     }
 
+    /**
+     * 按钮切换语言时不会调整大小，只需要提前解析文本，解析结果会被文本缓存。
+     * @param language 语言
+     */
+    @Override
+    public void prepareLanguage(String language) {
+        i18n.format(rawText, language);
+    }
+
     public void registerColorConfig(ColorConfig config, ButtonColorConfig buttonColorConfig){
-        this.colorConfigMap.put(config.getName(), buttonColorConfig);
+        this.palette = palette.with(config, buttonColorConfig);
     }
 
     private Rectangle2D getTextBounds(String text){
-        return getFont().getStringBounds(text, new FontRenderContext(new AffineTransform(), true, true));
+        return TextMetrics.getStringBounds(getFont(), text);
     }
 
     public static class ButtonColorConfig{
@@ -166,9 +179,15 @@ public class DButton extends JButton implements RoundBorder, ColorSwitch, Langua
             this.fontColor = fontColor;
             this.pressedColor = pressedColor;
         }
+
+        private ButtonColorConfig(ButtonColorConfig config){
+            this(config.backgroundColor, config.disableBackgroundColor, config.borderColor, config.fontColor, config.pressedColor);
+        }
     }
 
     private class DButtonUI extends BasicButtonUI{
+        private final GlyphCache glyphs = new GlyphCache(1);
+
         @Override
         public void paint(Graphics g, JComponent c) {
             ButtonModel model = getModel();
@@ -176,15 +195,9 @@ public class DButton extends JButton implements RoundBorder, ColorSwitch, Langua
             g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
             if(!model.isPressed()){
                 if(model.isEnabled()){
-                    g2d.setColor(borderColor);
-                    g2d.fillRoundRect(0, 0, getWidth(), getHeight(), arc, arc);
-                    g2d.setColor(getBackground());
-                    g2d.fillRoundRect(1, 1, getWidth()-2, getHeight()-2, arc, arc);
+                    RoundRectCache.paint(g2d, 0, 0, getWidth(), getHeight(), arc, arc, borderColor, getBackground());
                 }else{
-                    g2d.setColor(borderColor);
-                    g2d.fillRoundRect(0, 0, getWidth(), getHeight(), arc, arc);
-                    g2d.setColor(disableBackgroundColor);
-                    g2d.fillRoundRect(1, 1, getWidth()-2, getHeight()-2, arc, arc);
+                    RoundRectCache.paint(g2d, 0, 0, getWidth(), getHeight(), arc, arc, borderColor, disableBackgroundColor);
                 }
             }else {
                 this.paintButtonPressed(g, (AbstractButton) c);
@@ -196,16 +209,18 @@ public class DButton extends JButton implements RoundBorder, ColorSwitch, Langua
                 g2d.setColor(new Color(167, 167, 167));
             }
 
-            Rectangle2D.Float r = (Rectangle2D.Float) g2d.getFont().getStringBounds(getText(), g2d.getFontRenderContext());
+            Rectangle2D.Float r = TextMetrics.getStringBounds(g2d.getFont(), getText(), g2d.getFontRenderContext());
             float x, y = (getHeight() - r.height) / 2;
             if(getIcon() != null){
                 int iconSize = getHeight() > getWidth() ? getWidth() - 8 : getHeight() - 8;
                 Icon icon = getIcon();
                 Image image = null;
                 if(icon instanceof DIcon){
-                    image = ((DIcon) icon).getImage();
+                    ((DIcon) icon).paint(DButton.this, g2d, 4, 4, iconSize, iconSize, model.isEnabled());
                 }else if(icon instanceof ImageIcon) {
                     image = ((ImageIcon) icon).getImage();
+                }else if(icon instanceof DVectorIcon) {
+                    ((DVectorIcon) icon).paint(g2d, 4, 4, iconSize, iconSize, model.isEnabled());
                 }
                 if(image != null)
                     g2d.drawImage(image, 4, 4, iconSize, iconSize, null);
@@ -213,16 +228,12 @@ public class DButton extends JButton implements RoundBorder, ColorSwitch, Langua
             }else{
                 x = (getWidth() - r.width)/2;
             }
-            g2d.drawString(getText(), x, y - r.y);
+            glyphs.draw(g2d, getText(), x, y - r.y);
         }
 
         @Override
         protected void paintButtonPressed(Graphics g, AbstractButton b) {
-            Graphics2D g2d = (Graphics2D) g;
-            g2d.setColor(borderColor);
-            g2d.fillRoundRect(0, 0, getWidth(), getHeight(), arc, arc);
-            g2d.setColor(pressedColor);
-            g2d.fillRoundRect(1, 1, getWidth()-2, getHeight()-2, arc, arc);
+            RoundRectCache.paint((Graphics2D) g, 0, 0, getWidth(), getHeight(), arc, arc, borderColor, pressedColor);
         }
     }
 }
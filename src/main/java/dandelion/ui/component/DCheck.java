@@ -2,6 +2,7 @@ package dandelion.ui.component;
 
 import dandelion.ui.color.ColorConfig;
 import dandelion.ui.color.ColorSwitch;
+import dandelion.ui.color.Palette;
 import dandelion.ui.lang.LanguageSwitch;
 import dandelion.ui.lang.Text;
 import dandelion.ui.lang.i18n;
@@ -9,11 +10,7 @@ import dandelion.ui.lang.i18n;
 import javax.swing.*;
 import javax.swing.plaf.basic.BasicCheckBoxUI;
 import java.awt.*;
-import java.awt.font.FontRenderContext;
-import java.awt.geom.AffineTransform;
 import java.awt.geom.Rectangle2D;
-import java.util.HashMap;
-import java.util.Map;
 
 /**
  * 全新设计的勾选框，有圆形和方形两种样式，支持显示文本信息。支持颜色切换、
@@ -38,7 +35,13 @@ public class DCheck extends JCheckBox implements RoundBorder, ColorSwitch, Langu
     private Color fontColor = Color.black;
     private Text rawText;
     private int size;
-    private final Map<String, CheckColorConfig> colorConfigMap = new HashMap<>();
+    private static final Palette<CheckColorConfig> DEFAULT_PALETTE = Palette.<CheckColorConfig>empty()
+            .with(ColorSwitch.LIGHT, new CheckColorConfig(new Color(43, 137, 213), Color.white, Color.black,
+                    Color.white, new Color(220, 220, 220), new Color(220, 220, 220)))
+            .with(ColorSwitch.DARK, new CheckColorConfig(new Color(37, 119, 186), new Color(75, 75, 75), Color.white,
+                    Color.white, new Color(220, 220, 220), new Color(220, 220, 220)));
+    private Palette<CheckColorConfig> palette = DEFAULT_PALETTE;
+    private volatile PreparedText prepared;
 
     public DCheck(){
         this(RECTANGLE, "");
@@ -69,13 +72,7 @@ public class DCheck extends JCheckBox implements RoundBorder, ColorSwitch, Langu
         this.setUI(new XCheckUI());
         this.setOpaque(false);
 
-        CheckColorConfig def =
-                new CheckColorConfig(new Color(43, 137, 213), Color.white, Color.black,
-                        Color.white, new Color(220, 220, 220), new Color(220, 220, 220));
-        this.registerColorConfig(ColorSwitch.LIGHT, def);
-        this.registerColorConfig(ColorSwitch.DARK,
-                new CheckColorConfig(new Color(37, 119, 186), new Color(75, 75, 75), Color.white,
-                        Color.white, new Color(220, 220, 220), new Color(220, 220, 220)));
+        CheckColorConfig def = DEFAULT_PALETTE.get(ColorSwitch.LIGHT);
         this.resetColor(def);
     }
 
@@ -109,10 +106,26 @@ public class DCheck extends JCheckBox implements RoundBorder, ColorSwitch, Langu
 
     @Override
     public void switchLanguage(String local) {
+        PreparedText prepared = this.prepared;
+        this.prepared = null;
+        if(prepared != null && prepared.matches(local, rawText, getFont())){
+            super.setText(prepared.text);
+            this.setSize(prepared.size.width, this.getHeight());
+            return;
+        }
         super.setText(i18n.format(rawText, local));
         this.adjustSize();
     }
 
+    @Override
+    public void prepareLanguage(String language) {
+        Text rawText = this.rawText;
+        Font font = getFont();
+        String text = i18n.format(rawText, language);
+        int width = (int) getTextBounds(font, text).getWidth();
+        this.prepared = new PreparedText(language, rawText, font, text, new Dimension(size+width+1, size));
+    }
+
     @Override
     public void setArc(int arc) {
         this.arc = arc;
@@ -120,7 +133,7 @@ public class DCheck extends JCheckBox implements RoundBorder, ColorSwitch, Langu
 
     @Override
     public void switchColor(ColorConfig config) {
-        CheckColorConfig checkColorConfig = colorConfigMap.get(config.getName());
+        CheckColorConfig checkColorConfig = palette.get(config);
         if(checkColorConfig == null)
             throw new UnsupportedOperationException("未发现此配色方案的配置文件，请先为此实例注册配置文件！");
         this.resetColor(checkColorConfig);
@@ -129,7 +142,12 @@ public class DCheck extends JCheckBox implements RoundBorder, ColorSwitch, Langu
     }
 
     public CheckColorConfig getColorConfig(ColorConfig config){
-        return colorConfigMap.get(config.getName());
+        CheckColorConfig colorConfig = palette.get(config);
+        if(colorConfig != null && colorConfig == DEFAULT_PALETTE.get(config)){
+            colorConfig = new CheckColorConfig(colorConfig);
+            this.palette = palette.with(config, colorConfig);
+        }
+        return colorConfig;
     }
 
     private void resetColor(CheckColorConfig config){
@@ -142,7 +160,7 @@ public class DCheck extends JCheckBox implements RoundBorder, ColorSwitch, Langu
     }
 
     public void registerColorConfig(ColorConfig config, CheckColorConfig checkColorConfig){
-        this.colorConfigMap.put(config.getName(), checkColorConfig);
+        this.palette = palette.with(config, checkColorConfig);
     }
 
     private void adjustSize(){
@@ -151,7 +169,11 @@ public class DCheck extends JCheckBox implements RoundBorder, ColorSwitch, Langu
     }
 
     private Rectangle2D getTextBounds(String text){
-        return this.getFont().getStringBounds(text, new FontRenderContext(new AffineTransform(), true, true));
+        return this.getTextBounds(this.getFont(), text);
+    }
+
+    private Rectangle2D getTextBounds(Font font, String text){
+        return TextMetrics.getStringBounds(font, text);
     }
 
     public static class CheckColorConfig{
@@ -170,9 +192,14 @@ public class DCheck extends JCheckBox implements RoundBorder, ColorSwitch, Langu
             this.disabledColor = disabledColor;
             this.borderColor = borderColor;
         }
+
+        private CheckColorConfig(CheckColorConfig config){
+            this(config.selectedColor, config.backgroundColor, config.fontColor, config.centerColor, config.disabledColor, config.borderColor);
+        }
     }
 
     private class XCheckUI extends BasicCheckBoxUI{
+        private final GlyphCache glyphs = new GlyphCache(1);
 
         @Override
         public synchronized void paint(Graphics g, JComponent c) {
@@ -185,7 +212,7 @@ public class DCheck extends JCheckBox implements RoundBorder, ColorSwitch, Langu
                 g2d.setColor(Color.lightGray);
             }
             int h = (int) getTextBounds(getText()).getHeight();
-            g2d.drawString(getText(), getHeight() + 1, (float) ((h + getHeight())/2 - h/5));
+            glyphs.draw(g2d, getText(), getHeight() + 1, (float) ((h + getHeight())/2 - h/5));
 
             switch (type){
                 case ROUND:
@@ -214,24 +241,15 @@ public class DCheck extends JCheckBox implements RoundBorder, ColorSwitch, Langu
                 case RECTANGLE:
                     if(isEnabled()){
                         if(isSelected()){
-                            g2d.setColor(selectedColor.brighter());
-                            g2d.fillRoundRect(0 , 0, getHeight(), getHeight(), arc, arc);
-                            g2d.setColor(selectedColor);
-                            g2d.fillRoundRect(1 , 1, getHeight()-2, getHeight()-2, arc, arc);
+                            RoundRectCache.paint(g2d, 0, 0, getHeight(), getHeight(), arc, arc, selectedColor.brighter(), selectedColor);
                             g2d.setColor(centerColor);
                             g2d.setStroke(new BasicStroke(2.0f, BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND));
                             g2d.drawPolyline(new int[]{4, 7, 13}, new int[]{8, 12, 5}, 3);
                         }else {
-                            g2d.setColor(borderColor);
-                            g2d.fillRoundRect(0 , 0, getHeight(), getHeight(), arc, arc);
-                            g2d.setColor(getBackground());
-                            g2d.fillRoundRect(1 , 1, getHeight()-2, getHeight()-2, arc, arc);
+                            RoundRectCache.paint(g2d, 0, 0, getHeight(), getHeight(), arc, arc, borderColor, getBackground());
                         }
                     }else {
-                        g2d.setColor(borderColor);
-                        g2d.fillRoundRect(0 , 0, getHeight(), getHeight(), arc, arc);
-                        g2d.setColor(disabledColor);
-                        g2d.fillRoundRect(1 , 1, getHeight()-2, getHeight()-2, arc, arc);
+                        RoundRectCache.paint(g2d, 0, 0, getHeight(), getHeight(), arc, arc, borderColor, disabledColor);
                     }
                     break;
             }
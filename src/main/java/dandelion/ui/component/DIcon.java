@@ -3,93 +3,264 @@ package dandelion.ui.component;
 import dandelion.ui.color.ColorConfig;
 import dandelion.ui.color.ColorSwitch;
 
-import javax.imageio.ImageIO;
+import dandelion.ui.image.ImageAtlas;
+import dandelion.ui.image.ImageLoader;
+import dandelion.ui.image.ImageScaler;
+import dandelion.ui.image.ImageVariant;
+
 import javax.swing.*;
 import java.awt.*;
+import java.awt.image.BufferedImage;
 import java.awt.image.ImageObserver;
-import java.io.File;
 import java.io.IOException;
-import java.io.InputStream;
-import java.net.URL;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.CompletionException;
 
 /**
  * 支持颜色变换的图标，切换颜色时会自动变换当前图标。
+ *
+ * <p>
+ * 除了为每个配色方案加载单独的图片外，也可以注册从默认图片派生的变体，
+ * 例如深色模式下反转亮度，变体在第一次用到时才在后台生成。
+ *
+ * <p>
+ * 使用图集区域创建的图标直接从图集页面中绘制对应的区域，任何大小下都
+ * 不会复制像素。其他图片以不同于原始大小的尺寸绘制时，缩放后的图片在
+ * 后台生成并缓存，生成完成之前直接拉伸原图片绘制。
  */
 public class DIcon implements ColorSwitch, Icon {
+    private static final Image PLACEHOLDER = new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB);
+
     private final Map<String, Image> imageMap = new HashMap<>();
+    private final Map<Component, Boolean> painted = new WeakHashMap<>();
+    private final Map<String, ImageVariant> variantMap = new HashMap<>();
+    private final Map<Key, Image> scaled = new LinkedHashMap<Key, Image>(16, 0.75f, true){
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, Image> eldest) {
+            return size() > 8;
+        }
+    };
+    private final Map<Key, Image> derived = new LinkedHashMap<Key, Image>(8, 0.75f, true){
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, Image> eldest) {
+            return size() > 4;
+        }
+    };
+    private final Set<Key> deriving = new HashSet<>();
+    private final Set<Key> scaling = new HashSet<>();
+    //由图集区域得到的图片，绘制时直接使用图集页面
+    private final Map<Image, ImageAtlas.Region> regions = new IdentityHashMap<>();
+    private final boolean async;
+    private final int width, height;
     private ImageObserver observer;
     private Image image;
+    private String selected = ColorSwitch.LIGHT.getName();
 
-    public static final int NETWORK = 0;
-    public static final int JAR = 1;
-    public static final int FILE = 2;
+    public static final int NETWORK = ImageLoader.NETWORK;
+    public static final int JAR = ImageLoader.JAR;
+    public static final int FILE = ImageLoader.FILE;
 
     public DIcon(String path, int type){
-        try {
-            switch (type){
-                case NETWORK:
-                    image = ImageIO.read(new URL(path));
-                    break;
-                case JAR:
-                    InputStream stream = this.getClass().getResourceAsStream(path);
-                    if(stream != null) image = ImageIO.read(stream);
-                    break;
-                case FILE:
-                    image = ImageIO.read(new File(path));
-                    break;
-                default:
-                    throw new UnsupportedOperationException("错误的路径类型！");
-            }
-            this.registerColorConfig(ColorSwitch.LIGHT, image);
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
+        this(path, type, false);
+    }
+
+    /**
+     * 从指定路径加载图标，同一张图片只会被解码一次。
+     * @param path 路径
+     * @param type 路径类型
+     * @param async 是否在后台加载，后台加载完成之前图标显示为空白，
+     *              加载完成后绘制过此图标的组件会自动重绘
+     *
+     * @since 1.2
+     */
+    public DIcon(String path, int type, boolean async){
+        this(path, type, 0, 0, async);
+    }
+
+    /**
+     * 从指定路径加载图标，并在解码时直接缩放到指定的像素大小，适合用
+     * 大尺寸图片作为小图标的情况，内存占用只与显示大小相关。
+     * @param path 路径
+     * @param type 路径类型
+     * @param width 图标宽度（像素）
+     * @param height 图标高度（像素）
+     * @param async 是否在后台加载
+     *
+     * @since 1.2
+     */
+    public DIcon(String path, int type, int width, int height, boolean async){
+        this.async = async;
+        this.width = width;
+        this.height = height;
+        if(async) this.image = PLACEHOLDER;
+        this.registerColorConfig(ColorSwitch.LIGHT, path, type);
+        if(!async) this.image = imageMap.get(ColorSwitch.LIGHT.getName());
     }
 
     public DIcon(Image image){
+        this.async = false;
+        this.width = 0;
+        this.height = 0;
         this.image = image;
         this.registerColorConfig(ColorSwitch.LIGHT, image);
     }
 
+    /**
+     * 使用图集中的一个区域作为图标，图标与图集共享像素数据。
+     * @param region 图集区域
+     *
+     * @since 1.2
+     */
+    public DIcon(ImageAtlas.Region region){
+        this(region.getImage());
+        this.regions.put(image, region);
+    }
+
+    /**
+     * 从指定路径加载图片作为某个配色方案下的图标，以后台加载方式创建的
+     * 图标也会在后台加载这张图片。
+     * @param config 配色方案
+     * @param path 路径
+     * @param type 路径类型
+     */
     public void registerColorConfig(ColorConfig config, String path, int type){
-        Image image = null;
+        if(async){
+            ImageLoader.load(this.getClass(), path, type, width, height).whenComplete((image, throwable) ->
+                    SwingUtilities.invokeLater(() -> {
+                        if(image != null){
+                            this.registerColorConfig(config, image);
+                            this.onLoaded();
+                        }else {
+                            unwrap(throwable).printStackTrace();
+                        }
+                    }));
+            return;
+        }
         try {
-            switch (type){
-                case NETWORK:
-                    image = ImageIO.read(new URL(path));
-                    break;
-                case JAR:
-                    InputStream stream = this.getClass().getResourceAsStream(path);
-                    if(stream != null) image = ImageIO.read(stream);
-                    break;
-                case FILE:
-                    image = ImageIO.read(new File(path));
-                    break;
-                default:
-                    throw new UnsupportedOperationException("错误的路径类型！");
-            }
+            this.registerColorConfig(config, ImageLoader.loadNow(this.getClass(), path, type, width, height));
         }catch (IOException e){
             e.printStackTrace();
         }
-        if(image != null) this.imageMap.put(config.getName(), image);
+    }
+
+    /**
+     * 使用图集中的一个区域作为某个配色方案下的图标
+     * @param config 配色方案
+     * @param region 图集区域
+     *
+     * @since 1.2
+     */
+    public void registerColorConfig(ColorConfig config, ImageAtlas.Region region){
+        Image image = region.getImage();
+        this.regions.put(image, region);
+        this.registerColorConfig(config, image);
     }
 
     public void registerColorConfig(ColorConfig config, Image image){
         this.imageMap.put(config.getName(), image);
     }
 
+    /**
+     * 使用默认配色方案图片的变体作为某个配色方案下的图标，不需要为这个
+     * 配色方案准备单独的图片。变体在第一次切换到此配色方案时在后台生成，
+     * 生成完成之前显示默认图片。
+     * @param config 配色方案
+     * @param variant 变体
+     *
+     * @since 1.2
+     */
+    public void registerColorConfig(ColorConfig config, ImageVariant variant){
+        this.imageMap.remove(config.getName());
+        this.variantMap.put(config.getName(), variant);
+    }
+
     /**
      * 在没有对应的已注册的颜色变换配置文件时，会自动采用默认配色。
      * @param config 颜色配置
      */
     @Override
     public void switchColor(ColorConfig config) {
-        Image image = imageMap.get(config.getName());
+        this.selected = config.getName();
+        Image image = this.resolve(config.getName());
         if(image != null) this.image = image;
     }
 
+    /**
+     * 查找配色方案对应的图片，注册的是变体时从默认图片生成，还没有生成
+     * 完成时暂时使用默认图片。
+     */
+    private Image resolve(String name){
+        Image image = imageMap.get(name);
+        ImageVariant variant = variantMap.get(name);
+        if(image != null || variant == null) return image;
+        Image base = imageMap.get(ColorSwitch.LIGHT.getName());
+        if(base == null) return null;
+        Image result = this.derive(base, variant);
+        return result != null ? result : base;
+    }
+
+    /**
+     * 获取图片的变体，每张图片的每个变体只会生成一次
+     * @return 变体图片，还没有生成完成时为null
+     */
+    private Image derive(Image source, ImageVariant variant){
+        if(source == PLACEHOLDER || source.getWidth(null) <= 0 || source.getHeight(null) <= 0) return null;
+        Key key = new Key(source, variant);
+        Image result = derived.get(key);
+        if(result == null && deriving.add(key)){
+            variant.applyAsync(source).whenComplete((image, throwable) ->
+                    SwingUtilities.invokeLater(() -> {
+                        deriving.remove(key);
+                        if(image != null){
+                            derived.put(key, image);
+                            this.onLoaded();
+                        }else {
+                            unwrap(throwable).printStackTrace();
+                        }
+                    }));
+        }
+        return result;
+    }
+
+    /**
+     * 是否还有在后台加载中的图片
+     * @return 正在显示占位图时为true
+     *
+     * @since 1.2
+     */
+    public boolean isLoading() {
+        return image == PLACEHOLDER;
+    }
+
+    /**
+     * 后台加载的图片或者变体生成完成后，在EDT中更新当前显示的图片并通知组件重绘。
+     */
+    private void onLoaded(){
+        Image current = this.resolve(selected);
+        if(current == null) current = imageMap.get(ColorSwitch.LIGHT.getName());
+        if(current == null) return;
+        this.image = current;
+        if(observer != null)
+            observer.imageUpdate(current, ImageObserver.ALLBITS, 0, 0, current.getWidth(null), current.getHeight(null));
+        this.repaintTracked();
+    }
+
+    private void repaintTracked(){
+        for (Component component : painted.keySet()){
+            component.repaint();
+        }
+    }
+
+    private static Throwable unwrap(Throwable throwable){
+        return throwable instanceof CompletionException && throwable.getCause() != null ? throwable.getCause() : throwable;
+    }
+
     public void setObserver(ImageObserver observer) {
         this.observer = observer;
     }
@@ -102,9 +273,116 @@ public class DIcon implements ColorSwitch, Icon {
         return image;
     }
 
+    /**
+     * 获取缩放到指定像素大小的当前图片，每个大小只会缩放一次，最多
+     * 缓存最近使用的8个图片和大小的组合。
+     * @param width 宽度（像素）
+     * @param height 高度（像素）
+     * @return 图片，图片还没有加载完成时返回原图片
+     *
+     * @since 1.2
+     */
+    public Image getImage(int width, int height) {
+        return this.scale(this.image, width, height);
+    }
+
+    /**
+     * 获取当前图片的灰色版本并缩放到指定像素大小，用于禁用状态，第一次
+     * 使用时在后台生成，生成完成之前返回正常的图片。
+     * @param width 宽度（像素）
+     * @param height 高度（像素）
+     * @return 图片
+     *
+     * @since 1.2
+     */
+    public Image getDisabledImage(int width, int height) {
+        Image image = this.image;
+        if(image == null) return null;
+        Image disabled = this.derive(image, ImageVariant.grayscale());
+        return this.scale(disabled != null ? disabled : image, width, height);
+    }
+
+    /**
+     * 记录绘制过此图标的组件，后台加载或生成的图片完成后重绘这些组件
+     * @param component 组件
+     */
+    void track(Component component){
+        painted.put(component, Boolean.TRUE);
+    }
+
+    private Image scale(Image image, int width, int height){
+        if(width <= 0 || height <= 0 || image == null || image == PLACEHOLDER) return image;
+        if(image.getWidth(null) == width && image.getHeight(null) == height) return image;
+        Key key = new Key(image, ((long) width << 32) | height);
+        synchronized (scaled){
+            Image result = scaled.get(key);
+            if(result != null) return result;
+        }
+        Image result = ImageScaler.scale(image, width, height);
+        if(result == null) return image;
+        synchronized (scaled){
+            Image previous = scaled.get(key);
+            if(previous != null) return previous;
+            scaled.put(key, result);
+        }
+        return result;
+    }
+
+    /**
+     * 获取已经缩放好的图片，还没有缩放时在后台缩放，完成后重绘绘制过此
+     * 图标的组件，在此之前返回原图片。
+     */
+    private Image scaleLater(Image image, int width, int height){
+        if(width <= 0 || height <= 0 || image == null || image == PLACEHOLDER) return image;
+        if(image.getWidth(null) == width && image.getHeight(null) == height) return image;
+        Key key = new Key(image, ((long) width << 32) | height);
+        synchronized (scaled){
+            Image result = scaled.get(key);
+            if(result != null) return result;
+            if(!scaling.add(key)) return image;
+        }
+        ImageScaler.scaleAsync(image, width, height).whenComplete((result, throwable) ->
+                SwingUtilities.invokeLater(() -> {
+                    synchronized (scaled){
+                        scaling.remove(key);
+                        if(result != null) scaled.put(key, result);
+                    }
+                    if(throwable != null) unwrap(throwable).printStackTrace();
+                    else if(result != null) this.repaintTracked();
+                }));
+        return image;
+    }
+
+    /**
+     * 绘制当前图片，图集区域直接从图集页面绘制，其他图片使用按像素大小
+     * 缓存的缩放结果。
+     * @param c 组件
+     * @param g 画笔
+     * @param enabled 为false时绘制灰色版本
+     */
+    void paint(Component c, Graphics2D g, int x, int y, int width, int height, boolean enabled){
+        if(width <= 0 || height <= 0) return;
+        this.track(c);
+        Image image = this.image;
+        if(image == null) return;
+        if(!enabled){
+            Image disabled = this.derive(image, ImageVariant.grayscale());
+            if(disabled != null) image = disabled;
+        }
+        ImageAtlas.Region region = regions.get(image);
+        if(region != null){
+            g.drawImage(region.getPage(), x, y, x + width, y + height, region.getX(), region.getY(),
+                    region.getX() + region.getWidth(), region.getY() + region.getHeight(), observer);
+            return;
+        }
+        double scale = g.getTransform().getScaleX();
+        g.drawImage(this.scaleLater(image, (int) Math.ceil(width * scale), (int) Math.ceil(height * scale)),
+                x, y, width, height, observer);
+    }
+
     @Override
     public void paintIcon(Component c, Graphics g, int x, int y) {
-        g.drawImage(image, x, y, c.getWidth(), c.getHeight(), observer);
+        this.paint(c, (Graphics2D) g, x, y, c.getWidth(), c.getHeight(), true);
     }
 
     @Override
@@ -116,4 +394,29 @@ public class DIcon implements ColorSwitch, Icon {
     public int getIconHeight() {
         return image.getHeight(observer);
     }
+
+    /**
+     * 缓存的键，按引用比较图片，按值比较其余部分
+     */
+    private static final class Key{
+        private final Image image;
+        private final Object value;
+
+        Key(Image image, Object value){
+            this.image = image;
+            this.value = value;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if(!(o instanceof Key)) return false;
+            Key key = (Key) o;
+            return image == key.image && value.equals(key.value);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * System.identityHashCode(image) + value.hashCode();
+        }
+    }
 }
@@ -2,14 +2,14 @@ package dandelion.ui.component;
 
 import dandelion.ui.color.ColorConfig;
 import dandelion.ui.color.ColorSwitch;
+import dandelion.ui.color.Palette;
+import dandelion.ui.image.ImageAtlas;
 
 import javax.swing.*;
 import javax.swing.plaf.ComponentUI;
 import java.awt.*;
 import java.awt.geom.RoundRectangle2D;
 import java.awt.image.BufferedImage;
-import java.util.HashMap;
-import java.util.Map;
 
 /**
  * 全新编写的Image组件，支持显示图片，同时支持颜色转换，默认在深色模式下
@@ -26,7 +26,11 @@ public class DImage extends JComponent implements RoundBorder, ColorSwitch {
     private boolean paintBorder = false;
     private Color maskColor;
     private boolean paintMask = true;
-    private final Map<String, ImageColorConfig> colorConfigMap = new HashMap<>();
+    private boolean dirty = true;
+    private static final Palette<ImageColorConfig> DEFAULT_PALETTE = Palette.<ImageColorConfig>empty()
+            .with(ColorSwitch.LIGHT, new ImageColorConfig(Color.lightGray, new Color(255, 255, 255,0)))
+            .with(ColorSwitch.DARK, new ImageColorConfig(Color.darkGray, new Color(1,1,1, 40)));
+    private Palette<ImageColorConfig> palette = DEFAULT_PALETTE;
 
     /**
      * 对图片按照width和height进行缩放显示
@@ -38,6 +42,18 @@ public class DImage extends JComponent implements RoundBorder, ColorSwitch {
         this(0, 0, image.getWidth(null), image.getHeight(null), width, height, image);
     }
 
+    /**
+     * 显示图集中的一个区域，直接从图集的整页图片中裁剪绘制，不会复制图片。
+     * @param width 宽度
+     * @param height 高度
+     * @param region 图集区域
+     *
+     * @since 1.2
+     */
+    public DImage(int width, int height, ImageAtlas.Region region){
+        this(region.getX(), region.getY(), region.getWidth(), region.getHeight(), width, height, region.getPage());
+    }
+
     /**
      * 对原图片进行处理并缩放显示。
      * @param u 源图片的x顶点
@@ -55,10 +71,7 @@ public class DImage extends JComponent implements RoundBorder, ColorSwitch {
         this.v = v;
         this.uWidth = uWidth;
         this.vHeight = vHeight;
-        ImageColorConfig def = new ImageColorConfig(Color.lightGray, new Color(255, 255, 255,0));
-        this.registerColorConfig(ColorSwitch.LIGHT, def);
-        this.registerColorConfig(ColorSwitch.DARK,
-                new ImageColorConfig(Color.darkGray, new Color(1,1,1, 40)));
+        ImageColorConfig def = DEFAULT_PALETTE.get(ColorSwitch.LIGHT);
         this.borderColor = def.borderColor;
         this.maskColor = def.maskColor;
         this.setUI(new DImageUI());
@@ -68,12 +81,12 @@ public class DImage extends JComponent implements RoundBorder, ColorSwitch {
 
     public void setImage(Image image){
         this.image = image;
-        this.repaint();
+        this.invalidateComposite();
     }
 
     public void setPaintBorder(boolean paintBorder) {
         this.paintBorder = paintBorder;
-        this.repaint();
+        this.invalidateComposite();
     }
 
     /**
@@ -82,29 +95,49 @@ public class DImage extends JComponent implements RoundBorder, ColorSwitch {
      */
     public void setPaintMask(boolean paintMask) {
         this.paintMask = paintMask;
-        this.repaint();
+        this.invalidateComposite();
     }
 
     public ImageColorConfig getColorConfig(ColorConfig config){
-        return colorConfigMap.get(config.getName());
+        ImageColorConfig colorConfig = palette.get(config);
+        if(colorConfig != null && colorConfig == DEFAULT_PALETTE.get(config)){
+            colorConfig = new ImageColorConfig(colorConfig);
+            this.palette = palette.with(config, colorConfig);
+        }
+        return colorConfig;
     }
 
     @Override
     public void setArc(int arc) {
         this.arc = arc;
+        this.invalidateComposite();
     }
 
     public void registerColorConfig(ColorConfig config, ImageColorConfig imageColorConfig){
-        this.colorConfigMap.put(config.getName(), imageColorConfig);
+        this.palette = palette.with(config, imageColorConfig);
     }
 
     @Override
     public void switchColor(ColorConfig config) {
-        ImageColorConfig imageColorConfig = colorConfigMap.get(config.getName());
+        ImageColorConfig imageColorConfig = palette.get(config);
         if(imageColorConfig == null)
             throw new UnsupportedOperationException("未发现此配色方案的配置文件，请先为此实例注册配置文件！");
         this.borderColor = imageColorConfig.borderColor;
         this.maskColor = imageColorConfig.maskColor;
+        this.invalidateComposite();
+    }
+
+    /**
+     * 图片加载或者动图切换帧时需要重新合成。
+     */
+    @Override
+    public boolean imageUpdate(Image img, int infoflags, int x, int y, int w, int h) {
+        if(img == image && (infoflags & (FRAMEBITS | ALLBITS | SOMEBITS)) != 0) dirty = true;
+        return super.imageUpdate(img, infoflags, x, y, w, h);
+    }
+
+    private void invalidateComposite(){
+        this.dirty = true;
         this.repaint();
     }
 
@@ -116,13 +149,20 @@ public class DImage extends JComponent implements RoundBorder, ColorSwitch {
             this.borderColor = borderColor;
             this.maskColor = maskColor;
         }
+
+        private ImageColorConfig(ImageColorConfig config){
+            this(config.borderColor, config.maskColor);
+        }
     }
 
     private class DImageUI extends ComponentUI{
-        Image cans = null;
+        private BufferedImage composite;
+        private double scale;
 
         /**
-         * 防止闪屏现象，采用缓冲+限制区域绘制。
+         * 图片经过圆角裁剪、遮罩和边框处理后，按组件大小缓存为兼容图像，
+         * 只有图片、样式、颜色、组件大小或者设备缩放变化时才会重新合成，
+         * 其余时候绘制只需要一次拷贝。
          * @param g 图形
          * @param c 组件
          *
@@ -130,22 +170,47 @@ public class DImage extends JComponent implements RoundBorder, ColorSwitch {
          */
         @Override
         public void paint(Graphics g, JComponent c) {
-            if(image != null){
-                if(cans == null) cans = new BufferedImage(uWidth, vHeight, BufferedImage.TYPE_INT_ARGB);
-                Graphics2D g2d = (Graphics2D) cans.getGraphics();
+            if(image == null || getWidth() <= 0 || getHeight() <= 0) return;
+            Graphics2D g2d = (Graphics2D) g;
+            double scale = g2d.getTransform().getScaleX();
+            if(scale <= 0) scale = 1;
+            int width = (int) Math.ceil(getWidth() * scale), height = (int) Math.ceil(getHeight() * scale);
+            if(dirty || composite == null || composite.getWidth() != width
+                    || composite.getHeight() != height || this.scale != scale){
+                dirty = false;
+                this.scale = scale;
+                if(composite == null || composite.getWidth() != width || composite.getHeight() != height)
+                    composite = g2d.getDeviceConfiguration().createCompatibleImage(width, height, Transparency.TRANSLUCENT);
+                this.compose(scale);
+            }
+            g2d.drawImage(composite, 0, 0, getWidth(), getHeight(), null);
+        }
+
+        private void compose(double scale){
+            Graphics2D g2d = composite.createGraphics();
+            try {
+                g2d.setComposite(AlphaComposite.Clear);
+                g2d.fillRect(0, 0, composite.getWidth(), composite.getHeight());
+                g2d.setComposite(AlphaComposite.SrcOver);
+                g2d.scale(scale, scale);
                 g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-                g2d.setClip(new RoundRectangle2D.Float(0, 0, uWidth, vHeight, (float) arc * uWidth/getWidth(), (float) arc * vHeight/getHeight()));
-                g2d.drawImage(image, 0, 0,null);
+                g2d.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                g2d.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                int width = getWidth(), height = getHeight();
+                g2d.setClip(new RoundRectangle2D.Float(0, 0, width, height, arc, arc));
+                //图片没有加载完成时保持脏标记，加载过程中的imageUpdate会触发重绘
+                if(!g2d.drawImage(image, 0, 0, width, height, u, v, u + uWidth, v + vHeight, DImage.this)) dirty = true;
                 if(paintMask){
                     g2d.setColor(maskColor);
-                    g2d.fillRoundRect(0 ,0, uWidth, vHeight, arc * uWidth/getWidth(), arc * vHeight/getHeight());
+                    g2d.fillRoundRect(0 ,0, width, height, arc, arc);
                 }
                 if(paintBorder){
                     g2d.setColor(borderColor);
                     g2d.setStroke(new BasicStroke(2.0f, BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND));
-                    g2d.drawRoundRect(1, 1, uWidth - 2, vHeight - 2, arc * uWidth/getWidth(), arc * vHeight/getHeight());
+                    g2d.drawRoundRect(1, 1, width - 2, height - 2, arc, arc);
                 }
-                g.drawImage(cans, 0, 0, getWidth(), getHeight(), u, v, u+uWidth, v+vHeight,null);
+            }finally {
+                g2d.dispose();
             }
         }
     }
@@ -2,16 +2,15 @@ package dandelion.ui.component;
 
 import dandelion.ui.color.ColorConfig;
 import dandelion.ui.color.ColorSwitch;
+import dandelion.ui.color.Palette;
 import dandelion.ui.lang.LanguageSwitch;
 import dandelion.ui.lang.Text;
 import dandelion.ui.lang.i18n;
 
 import javax.swing.*;
+import javax.swing.border.Border;
 import java.awt.*;
-import java.awt.font.FontRenderContext;
-import java.awt.geom.AffineTransform;
 import java.awt.geom.Rectangle2D;
-import java.util.HashMap;
 import java.util.Map;
 
 /**
@@ -24,12 +23,17 @@ import java.util.Map;
  */
 public class DLabel extends JLabel implements ColorSwitch, LanguageSwitch {
 
-    private final Map<String, LabelColorConfig> colorConfigMap = new HashMap<>();
+    private static final Palette<LabelColorConfig> DEFAULT_PALETTE = Palette.<LabelColorConfig>empty()
+            .with(ColorSwitch.LIGHT, new LabelColorConfig(Color.black))
+            .with(ColorSwitch.DARK, new LabelColorConfig(new Color(230, 230, 230)));
+    private Palette<LabelColorConfig> palette = DEFAULT_PALETTE;
     private Text rawText;
     private String language = i18n.getDefaultLanguage();
     private static Font defaultFont = new Font("", Font.PLAIN, 13);
     private int maxWidth;
     private boolean autoResize = true;
+    private volatile PreparedText prepared;
+    private WrappedText wrapped;
 
     /**
      * 设置默认字体。
@@ -50,12 +54,9 @@ public class DLabel extends JLabel implements ColorSwitch, LanguageSwitch {
     public DLabel(Text text, int maxWidth){
         super(i18n.format(text));
         this.maxWidth = maxWidth;
-        if(maxWidth > 0) this.setText("<html>"+getText()+"</html>");
         this.setFont(defaultFont);
         this.rawText = text;
-        this.colorConfigMap.put(ColorSwitch.LIGHT.getName(), new LabelColorConfig(Color.black));
-        this.colorConfigMap.put(ColorSwitch.DARK.getName(), new LabelColorConfig(new Color(230, 230, 230)));
-        this.setForeground(colorConfigMap.get(ColorSwitch.LIGHT.getName()).fontColor);
+        this.setForeground(DEFAULT_PALETTE.get(ColorSwitch.LIGHT).fontColor);
         this.adjustSize();
         this.setOpaque(false);
     }
@@ -77,6 +78,12 @@ public class DLabel extends JLabel implements ColorSwitch, LanguageSwitch {
         }
     }
 
+    @Override
+    public void setBorder(Border border) {
+        super.setBorder(border);
+        this.adjustSize();
+    }
+
     @Override
     public Dimension getPreferredSize() {
         if(autoResize) return getSize();
@@ -85,42 +92,55 @@ public class DLabel extends JLabel implements ColorSwitch, LanguageSwitch {
 
     public void setMaxWidth(int maxWidth) {
         this.maxWidth = maxWidth;
+        this.adjustSize();
+        this.repaint();
     }
 
     private void adjustSize(){
         if(!autoResize) return;
-        if(maxWidth > 0){
-            String text = this.getText();
-            double totalHeight = 0;
-            int start = 0, end = 0;
-            while (end < text.length()){
-                boolean flag = false;
-                while (getTextBounds(text.substring(start, end)).getWidth() < maxWidth){
-                    if(end >= text.length()){
-                        flag = true;
-                        break;
-                    }
-                    end++;
-                }
-                Rectangle2D.Float r = (Rectangle2D.Float) getTextBounds(text.substring(start, end));
-                double height = r.getHeight();
-                totalHeight += (height + (r.y + r.height)/4);
-                if(!flag){
-                    start = end;
-                }else {
-                    break;
-                }
-            }
-            this.setSize(maxWidth, (int) Math.ceil(totalHeight));
+        String text = getText();
+        Font font = getFont();
+        this.setSize(measure(text, font, maxWidth > 0 ? this.wrap(text, font) : null, maxWidth, getIcon(), getIconTextGap(), getInsets()));
+    }
+
+    /**
+     * 获取文本的换行排版，文本和字体没有变化时会复用之前的排版结果。
+     */
+    private WrappedText wrap(String text, Font font){
+        WrappedText wrapped = this.wrapped;
+        if(wrapped == null || !wrapped.matches(text, font)){
+            wrapped = new WrappedText(text, font);
+            this.wrapped = wrapped;
+        }
+        return wrapped;
+    }
+
+    /**
+     * 计算文本在指定字体下所需的大小，不会读取组件的状态，可以在非EDT线程中调用。
+     * @param text 文本
+     * @param font 字体
+     * @param wrapped 文本的换行排版，没有宽度限制时为null
+     * @param maxWidth 宽度限制
+     * @param icon 图标
+     * @param gap 图标与文字的间距
+     * @param insets 边框占用的空间，宽度限制只针对文字，不包括边框
+     * @return 大小
+     */
+    private static Dimension measure(String text, Font font, WrappedText wrapped, int maxWidth, Icon icon, int gap, Insets insets){
+        int width, height;
+        if(wrapped != null){
+            width = maxWidth;
+            height = wrapped.layout(maxWidth).height;
         }else {
-            Rectangle2D rectangle = this.getTextBounds(getText());
-            this.setSize((int) Math.ceil(rectangle.getWidth()), (int) Math.ceil(rectangle.getHeight()));
+            Rectangle2D rectangle = getTextBounds(font, text);
+            width = (int) Math.ceil(rectangle.getWidth());
+            height = (int) Math.ceil(rectangle.getHeight());
         }
-        Icon icon = getIcon();
         if(icon != null){
-            int h = Math.max(getHeight(), icon.getIconHeight());
-            this.setSize(icon.getIconWidth() + getWidth(), h);
+            height = Math.max(height, icon.getIconHeight());
+            width += icon.getIconWidth() + (wrapped != null ? gap : 0);
         }
+        return new Dimension(width + insets.left + insets.right, height + insets.top + insets.bottom);
     }
 
     /**
@@ -131,7 +151,6 @@ public class DLabel extends JLabel implements ColorSwitch, LanguageSwitch {
     public void setText(Text text) {
         super.setText(i18n.format(text, language));
         this.rawText = text;
-        if(maxWidth > 0) this.setText("<html>"+getText()+"</html>");
         this.adjustSize();
     }
 
@@ -147,20 +166,99 @@ public class DLabel extends JLabel implements ColorSwitch, LanguageSwitch {
      * @param labelColorConfig Label颜色配置文件
      */
     public void registerColorConfig(ColorConfig config, LabelColorConfig labelColorConfig){
-        this.colorConfigMap.put(config.getName(), labelColorConfig);
+        this.palette = palette.with(config, labelColorConfig);
     }
 
     @Override
     public void switchLanguage(String language) {
         this.language = language;
+        PreparedText prepared = this.prepared;
+        this.prepared = null;
+        if(prepared != null && prepared.matches(language, rawText, getFont(), maxWidth, getIcon(), getIconTextGap(), getInsets())){
+            super.setText(prepared.text);
+            if(prepared.wrapped != null) this.wrapped = prepared.wrapped;
+            if(autoResize) this.setSize(prepared.size);
+            return;
+        }
         super.setText(i18n.format(rawText, language));
-        if(maxWidth > 0) this.setText("<html>"+getText()+"</html>");
         this.adjustSize();
     }
 
+    @Override
+    public void prepareLanguage(String language) {
+        Text rawText = this.rawText;
+        Font font = getFont();
+        int maxWidth = this.maxWidth, gap = getIconTextGap();
+        Icon icon = getIcon();
+        Insets insets = getInsets();
+        String text = i18n.format(rawText, language);
+        WrappedText wrapped = maxWidth > 0 ? new WrappedText(text, font) : null;
+        Dimension size = measure(text, font, wrapped, maxWidth, icon, gap, insets);
+        this.prepared = new PreparedText(language, rawText, font, text, size, wrapped, maxWidth, icon, gap, insets);
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        if(maxWidth <= 0 || getText() == null){
+            super.paintComponent(g);
+            return;
+        }
+        Graphics2D g2d = (Graphics2D) g.create();
+        try {
+            Object hints = Toolkit.getDefaultToolkit().getDesktopProperty("awt.font.desktophints");
+            if(hints instanceof Map) g2d.addRenderingHints((Map<?, ?>) hints);
+            if(isOpaque()){
+                g2d.setColor(getBackground());
+                g2d.fillRect(0, 0, getWidth(), getHeight());
+            }
+            Insets insets = getInsets();
+            int left = insets.left, top = insets.top;
+            int width = getWidth() - insets.left - insets.right, height = getHeight() - insets.top - insets.bottom;
+            Icon icon = getIcon();
+            if(icon != null){
+                icon.paintIcon(this, g2d, left, top + this.alignVertical(height, icon.getIconHeight()));
+                int offset = icon.getIconWidth() + getIconTextGap();
+                left += offset;
+                width -= offset;
+            }
+            //关闭自动大小后组件可能比宽度限制更窄，按实际可用的宽度换行
+            WrappedText.Lines lines = this.wrap(getText(), getFont()).layout(Math.min(maxWidth, width));
+            Color color = isEnabled() ? getForeground() : UIManager.getColor("Label.disabledForeground");
+            g2d.setColor(color != null ? color : getForeground());
+            lines.draw(g2d, left, width, top + this.alignVertical(height, lines.height), this.alignHorizontal());
+        }finally {
+            g2d.dispose();
+        }
+    }
+
+    /**
+     * 按照垂直对齐方式计算内容顶部相对于可用区域顶部的偏移
+     */
+    private int alignVertical(int available, int height){
+        switch (getVerticalAlignment()){
+            case TOP: return 0;
+            case BOTTOM: return available - height;
+            default: return Math.max(0, (available - height) / 2);
+        }
+    }
+
+    /**
+     * 按照水平对齐方式计算每一行在剩余宽度中的位置，0为左对齐，1为右对齐
+     */
+    private float alignHorizontal(){
+        boolean leftToRight = getComponentOrientation().isLeftToRight();
+        switch (getHorizontalAlignment()){
+            case CENTER: return 0.5f;
+            case RIGHT: return 1;
+            case TRAILING: return leftToRight ? 1 : 0;
+            case LEADING: return leftToRight ? 0 : 1;
+            default: return 0;
+        }
+    }
+
     @Override
     public void switchColor(ColorConfig config) {
-        LabelColorConfig labelColorConfig = colorConfigMap.get(config.getName());
+        LabelColorConfig labelColorConfig = palette.get(config);
         if(labelColorConfig == null)
             throw new UnsupportedOperationException("未发现此配色方案的配置文件，请先为此实例注册配置文件！");
         this.setForeground(labelColorConfig.fontColor);
@@ -168,11 +266,16 @@ public class DLabel extends JLabel implements ColorSwitch, LanguageSwitch {
     }
 
     public LabelColorConfig getColorConfig(ColorConfig config){
-        return colorConfigMap.get(config.getName());
+        LabelColorConfig colorConfig = palette.get(config);
+        if(colorConfig != null && colorConfig == DEFAULT_PALETTE.get(config)){
+            colorConfig = new LabelColorConfig(colorConfig);
+            this.palette = palette.with(config, colorConfig);
+        }
+        return colorConfig;
     }
 
-    private Rectangle2D getTextBounds(String text){
-        return this.getFont().getStringBounds(text, new FontRenderContext(new AffineTransform(), true, true));
+    private static Rectangle2D getTextBounds(Font font, String text){
+        return TextMetrics.getStringBounds(font, text);
     }
 
     public static class LabelColorConfig{
@@ -181,5 +284,9 @@ public class DLabel extends JLabel implements ColorSwitch, LanguageSwitch {
         public LabelColorConfig(Color fontColor){
             this.fontColor = fontColor;
         }
+
+        private LabelColorConfig(LabelColorConfig config){
+            this(config.fontColor);
+        }
     }
 }
@@ -2,6 +2,7 @@ package dandelion.ui.component;
 
 import dandelion.ui.color.ColorConfig;
 import dandelion.ui.color.ColorSwitch;
+import dandelion.ui.color.Palette;
 import dandelion.ui.lang.LanguageSwitch;
 import dandelion.ui.lang.i18n;
 
@@ -9,12 +10,8 @@ import javax.swing.*;
 import javax.swing.border.Border;
 import javax.swing.plaf.basic.BasicListUI;
 import java.awt.*;
-import java.awt.font.FontRenderContext;
-import java.awt.geom.AffineTransform;
 import java.awt.geom.Rectangle2D;
 import java.awt.geom.RoundRectangle2D;
-import java.util.HashMap;
-import java.util.Map;
 
 /**
  * 改进的JList组件，预置Cell组件作为单元格显示，采用更加美观
@@ -24,10 +21,16 @@ import java.util.Map;
 public class DList<E> extends JList<E> implements RoundBorder, ColorSwitch, LanguageSwitch {
 
     private int arc = 10;
-    private final Map<String, ListColorConfig> colorConfigMap = new HashMap<>();
+    private static final Palette<ListColorConfig> DEFAULT_PALETTE = Palette.<ListColorConfig>empty()
+            .with(ColorSwitch.LIGHT, new ListColorConfig(new Color(42, 137, 215), Color.white,
+                    Color.white, Color.black))
+            .with(ColorSwitch.DARK, new ListColorConfig(new Color(32, 108, 170), Color.white,
+                    new Color(54, 54, 54), Color.white));
+    private Palette<ListColorConfig> palette = DEFAULT_PALETTE;
     private Color selectedColor, selectedFontColor;
     private String language = i18n.getDefaultLanguage();
     private boolean paintBackground = true;
+    private final GlyphCache glyphs = new GlyphCache(256);
 
     public DList(int width, int height, E... elements){
         super(elements);
@@ -49,13 +52,7 @@ public class DList<E> extends JList<E> implements RoundBorder, ColorSwitch, Lang
                 return false;
             }
         });
-        ListColorConfig def =
-                new ListColorConfig(new Color(42, 137, 215), Color.white,
-                        Color.white, Color.black);
-        this.registerColorConfig(ColorSwitch.LIGHT, def);
-        this.registerColorConfig(ColorSwitch.DARK,
-                new ListColorConfig(new Color(32, 108, 170), Color.white,
-                        new Color(54, 54, 54), Color.white));
+        ListColorConfig def = DEFAULT_PALETTE.get(ColorSwitch.LIGHT);
         this.resetColor(def);
     }
 
@@ -69,12 +66,12 @@ public class DList<E> extends JList<E> implements RoundBorder, ColorSwitch, Lang
     }
 
     public void registerColorConfig(ColorConfig config, ListColorConfig listColorConfig){
-        this.colorConfigMap.put(config.getName(), listColorConfig);
+        this.palette = palette.with(config, listColorConfig);
     }
 
     @Override
     public void switchColor(ColorConfig config) {
-        ListColorConfig listColorConfig = colorConfigMap.get(config.getName());
+        ListColorConfig listColorConfig = palette.get(config);
         if(listColorConfig == null)
             throw new UnsupportedOperationException("未发现此配色方案的配置文件，请先为此实例注册配置文件！");
         this.resetColor(listColorConfig);
@@ -90,14 +87,20 @@ public class DList<E> extends JList<E> implements RoundBorder, ColorSwitch, Lang
     @Override
     public void switchLanguage(String language) {
         this.language = language;
+        this.glyphs.invalidate();
     }
 
     private Rectangle2D getTextBounds(String text){
-        return getFont().getStringBounds(text, new FontRenderContext(new AffineTransform(), true, true));
+        return TextMetrics.getStringBounds(getFont(), text);
     }
 
     public ListColorConfig getColorConfig(ColorConfig config){
-        return colorConfigMap.get(config.getName());
+        ListColorConfig colorConfig = palette.get(config);
+        if(colorConfig != null && colorConfig == DEFAULT_PALETTE.get(config)){
+            colorConfig = new ListColorConfig(colorConfig);
+            this.palette = palette.with(config, colorConfig);
+        }
+        return colorConfig;
     }
 
     public static class ListColorConfig{
@@ -112,6 +115,10 @@ public class DList<E> extends JList<E> implements RoundBorder, ColorSwitch, Lang
             this.backgroundColor = backgroundColor;
             this.fontColor = fontColor;
         }
+
+        private ListColorConfig(ListColorConfig config){
+            this(config.selectedColor, config.selectedFontColor, config.backgroundColor, config.fontColor);
+        }
     }
 
     private class Cell extends JComponent{
@@ -141,7 +148,7 @@ public class DList<E> extends JList<E> implements RoundBorder, ColorSwitch, Lang
 
             Rectangle2D.Float r = (Rectangle2D.Float) getTextBounds(getName());
             float y = (getHeight() - r.height)/2 - r.y;
-            g2d.drawString(getName(), 10, y);
+            glyphs.draw(g2d, getName(), 10, y);
 
         }
     }
@@ -2,6 +2,8 @@ package dandelion.ui.component;
 
 import dandelion.ui.color.ColorConfig;
 import dandelion.ui.color.ColorSwitch;
+import dandelion.ui.color.Palette;
+import dandelion.ui.gui.SwitchRegistry;
 import dandelion.ui.lang.LanguageSwitch;
 import dandelion.ui.lang.Text;
 import dandelion.ui.lang.i18n;
@@ -9,8 +11,6 @@ import dandelion.ui.lang.i18n;
 import javax.swing.*;
 import java.awt.*;
 import java.awt.geom.RoundRectangle2D;
-import java.util.HashMap;
-import java.util.Map;
 
 /**
  * 改进的JPanel组件，支持多语言和颜色切换，采用圆角样式。
@@ -24,7 +24,10 @@ public class DPanel extends JPanel implements LanguageSwitch, ColorSwitch, Round
     private ColorConfig selectColorConfig = ColorSwitch.LIGHT;
     private String language = i18n.getDefaultLanguage();
     private Color borderColor;
-    private final Map<String, PanelColorConfig> colorConfigMap = new HashMap<>();
+    private static final Palette<PanelColorConfig> DEFAULT_PALETTE = Palette.<PanelColorConfig>empty()
+            .with(ColorSwitch.LIGHT, new PanelColorConfig(new Color(234, 234, 234), new Color(222, 222, 222)))
+            .with(ColorSwitch.DARK, new PanelColorConfig(new Color(24, 24, 24), new Color(69, 69, 69)));
+    private Palette<PanelColorConfig> palette = DEFAULT_PALETTE;
     private Text rawText;
 
     public DPanel(){
@@ -39,10 +42,7 @@ public class DPanel extends JPanel implements LanguageSwitch, ColorSwitch, Round
         this.rawText = title;
         this.setName(i18n.getDefaultLanguage());
         this.setLayout(null);
-        PanelColorConfig def = new PanelColorConfig(new Color(234, 234, 234), new Color(222, 222, 222));
-        this.registerColorConfig(ColorSwitch.LIGHT, def);
-        this.registerColorConfig(ColorSwitch.DARK,
-                new PanelColorConfig(new Color(24, 24, 24), new Color(69, 69, 69)));
+        PanelColorConfig def = DEFAULT_PALETTE.get(ColorSwitch.LIGHT);
         this.borderColor = def.borderColor;
         this.setBackground(def.backgroundColor);
         this.setBorder(null);
@@ -69,10 +69,12 @@ public class DPanel extends JPanel implements LanguageSwitch, ColorSwitch, Round
     @Override
     public void switchLanguage(String language) {
         this.language = language;
-        for (Component component : this.getComponents()) {
-            if(component instanceof LanguageSwitch){
-                LanguageSwitch c = (LanguageSwitch) component;
-                c.switchLanguage(language);
+        if(!SwitchRegistry.isCovered(this)){
+            for (Component component : this.getComponents()) {
+                if(component instanceof LanguageSwitch){
+                    LanguageSwitch c = (LanguageSwitch) component;
+                    c.switchLanguage(language);
+                }
             }
         }
         this.setName(i18n.format(rawText, language));
@@ -83,10 +85,7 @@ public class DPanel extends JPanel implements LanguageSwitch, ColorSwitch, Round
         Graphics2D g2d = (Graphics2D) g;
         g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
         if(paintBackground){
-            g2d.setColor(borderColor);
-            g2d.fillRoundRect(0, 0, getWidth(), getHeight(), 15, 15);
-            g2d.setColor(getBackground());
-            g2d.fillRoundRect(1, 1, getWidth()-2, getHeight()-2, arc, arc);
+            RoundRectCache.paint(g2d, 0, 0, getWidth(), getHeight(), 15, arc, borderColor, getBackground());
         }
         super.paintChildren(g);
     }
@@ -105,12 +104,13 @@ public class DPanel extends JPanel implements LanguageSwitch, ColorSwitch, Round
 
     @Override
     public void switchColor(ColorConfig config) {
-        this.selectColorConfig = config;
-        PanelColorConfig panelColorConfig = colorConfigMap.get(config.getName());
+        PanelColorConfig panelColorConfig = palette.get(config);
         if(panelColorConfig == null)
             throw new UnsupportedOperationException("未发现此配色方案的配置文件，请先为此实例注册配置文件！");
+        this.selectColorConfig = config;
         this.setBackground(panelColorConfig.backgroundColor);
         this.borderColor = panelColorConfig.borderColor;
+        if(SwitchRegistry.isCovered(this)) return;
         for(Component component : this.getComponents()){
             if(component instanceof ColorSwitch){
                 ColorSwitch reverse = (ColorSwitch) component;
@@ -120,11 +120,16 @@ public class DPanel extends JPanel implements LanguageSwitch, ColorSwitch, Round
     }
 
     public PanelColorConfig getColorConfig(ColorConfig config){
-        return colorConfigMap.get(config.getName());
+        PanelColorConfig colorConfig = palette.get(config);
+        if(colorConfig != null && colorConfig == DEFAULT_PALETTE.get(config)){
+            colorConfig = new PanelColorConfig(colorConfig);
+            this.palette = palette.with(config, colorConfig);
+        }
+        return colorConfig;
     }
 
     public void registerColorConfig(ColorConfig config, PanelColorConfig panelColorConfig){
-        this.colorConfigMap.put(config.getName(), panelColorConfig);
+        this.palette = palette.with(config, panelColorConfig);
     }
 
     public static class PanelColorConfig{
@@ -135,5 +140,9 @@ public class DPanel extends JPanel implements LanguageSwitch, ColorSwitch, Round
             this.backgroundColor = backgroundColor;
             this.borderColor = borderColor;
         }
+
+        private PanelColorConfig(PanelColorConfig config){
+            this(config.backgroundColor, config.borderColor);
+        }
     }
 }
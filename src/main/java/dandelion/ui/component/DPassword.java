@@ -2,6 +2,7 @@ package dandelion.ui.component;
 
 import dandelion.ui.color.ColorConfig;
 import dandelion.ui.color.ColorSwitch;
+import dandelion.ui.color.Palette;
 import dandelion.ui.lang.LanguageSwitch;
 import dandelion.ui.lang.i18n;
 
@@ -12,11 +13,7 @@ import javax.swing.plaf.basic.BasicTextFieldUI;
 import java.awt.*;
 import java.awt.event.KeyAdapter;
 import java.awt.event.KeyEvent;
-import java.awt.font.FontRenderContext;
-import java.awt.geom.AffineTransform;
 import java.awt.geom.Rectangle2D;
-import java.util.HashMap;
-import java.util.Map;
 
 public class DPassword extends JPasswordField implements RoundBorder, ColorSwitch, LanguageSwitch {
     private final String rawHint;
@@ -24,7 +21,12 @@ public class DPassword extends JPasswordField implements RoundBorder, ColorSwitc
     private final DIcon icon;
     private static Font defaultFont = new Font("", Font.PLAIN, 13);
     private int arc = 10;
-    private final Map<String, PasswordColorConfig> colorConfigMap = new HashMap<>();
+    private static final Palette<PasswordColorConfig> DEFAULT_PALETTE = Palette.<PasswordColorConfig>empty()
+            .with(ColorSwitch.LIGHT, new PasswordColorConfig(Color.black, Color.white, Color.lightGray,
+                    Color.lightGray, new Color(219, 219, 219)))
+            .with(ColorSwitch.DARK, new PasswordColorConfig(Color.white, new Color(42, 42, 42),
+                    Color.gray, Color.gray, new Color(118, 118, 118)));
+    private Palette<PasswordColorConfig> palette = DEFAULT_PALETTE;
     private Color borderColor, hintColor, disabledColor;
 
     /**
@@ -82,13 +84,7 @@ public class DPassword extends JPasswordField implements RoundBorder, ColorSwitc
         this.setBorder(new DFieldBorder());
         this.setOpaque(false);
 
-        PasswordColorConfig def =
-                new PasswordColorConfig(Color.black, Color.white, Color.lightGray,
-                        Color.lightGray, new Color(219, 219, 219));
-        this.registerColorConfig(ColorSwitch.LIGHT, def);
-        this.registerColorConfig(ColorSwitch.DARK,
-                new PasswordColorConfig(Color.white, new Color(42, 42, 42),
-                        Color.gray, Color.gray, new Color(118, 118, 118)));
+        PasswordColorConfig def = DEFAULT_PALETTE.get(ColorSwitch.LIGHT);
         this.resetColor(def);
     }
 
@@ -135,7 +131,7 @@ public class DPassword extends JPasswordField implements RoundBorder, ColorSwitc
 
     @Override
     public void switchColor(ColorConfig config) {
-        PasswordColorConfig passwordColorConfig = colorConfigMap.get(config.getName());
+        PasswordColorConfig passwordColorConfig = palette.get(config);
         if(passwordColorConfig == null)
             throw new UnsupportedOperationException("未发现此配色方案的配置文件，请先为此实例注册配置文件！");
         this.resetColor(passwordColorConfig);
@@ -153,15 +149,20 @@ public class DPassword extends JPasswordField implements RoundBorder, ColorSwitc
     }
 
     private Rectangle2D getTextBounds(String text){
-        return this.getFont().getStringBounds(text, new FontRenderContext(new AffineTransform(), true, true));
+        return TextMetrics.getStringBounds(getFont(), text);
     }
 
     public void registerColorConfig(ColorConfig config, PasswordColorConfig passwordColorConfig){
-        this.colorConfigMap.put(config.getName(), passwordColorConfig);
+        this.palette = palette.with(config, passwordColorConfig);
     }
 
     public PasswordColorConfig getColorConfig(ColorConfig config){
-        return colorConfigMap.get(config.getName());
+        PasswordColorConfig colorConfig = palette.get(config);
+        if(colorConfig != null && colorConfig == DEFAULT_PALETTE.get(config)){
+            colorConfig = new PasswordColorConfig(colorConfig);
+            this.palette = palette.with(config, colorConfig);
+        }
+        return colorConfig;
     }
 
     public static class PasswordColorConfig{
@@ -178,6 +179,10 @@ public class DPassword extends JPasswordField implements RoundBorder, ColorSwitc
             this.hintColor = hintColor;
             this.disabledColor = disabledColor;
         }
+
+        private PasswordColorConfig(PasswordColorConfig config){
+            this(config.fontColor, config.backgroundColor, config.borderColor, config.hintColor, config.disabledColor);
+        }
     }
 
     private class DFieldBorder implements Border {
@@ -3,13 +3,12 @@ package dandelion.ui.component;
 
 import dandelion.ui.color.ColorConfig;
 import dandelion.ui.color.ColorSwitch;
+import dandelion.ui.color.Palette;
 
 import javax.swing.*;
 import javax.swing.plaf.ComponentUI;
 import java.awt.*;
 import java.awt.geom.Arc2D;
-import java.util.HashMap;
-import java.util.Map;
 
 /**
  * 全新设计的进度条组件，更加美观的圆角设计，它包含以下样式:
@@ -28,7 +27,16 @@ public class DProgress extends JComponent implements ColorSwitch, RoundBorder{
     public static int LINE = 0;
     public static int ROUND = 1;
 
-    private final Map<String, ProgressColorConfig> colorConfigMap = new HashMap<>();
+    private static final Palette<ProgressColorConfig> DEFAULT_PALETTE = Palette.<ProgressColorConfig>empty()
+            .with(ColorSwitch.LIGHT, new ProgressColorConfig(
+                    new Color(222, 222, 222),
+                    new Color(231, 231, 231),
+                    new Color(29, 139, 236)))
+            .with(ColorSwitch.DARK, new ProgressColorConfig(
+                    new Color(75, 75, 75),
+                    new Color(59, 59, 59),
+                    new Color(32, 134, 226)));
+    private Palette<ProgressColorConfig> palette = DEFAULT_PALETTE;
     private Color borderColor;
     private double max = 100.0;
     private double min = 0.0;
@@ -46,15 +54,7 @@ public class DProgress extends JComponent implements ColorSwitch, RoundBorder{
         this.shape = shape;
         this.setOpaque(false);
         this.setUI(new DProgressUI());
-        ProgressColorConfig def = new ProgressColorConfig(
-                new Color(222, 222, 222),
-                new Color(231, 231, 231),
-                new Color(29, 139, 236));
-        this.colorConfigMap.put(ColorSwitch.LIGHT.getName(), def);
-        this.colorConfigMap.put(ColorSwitch.DARK.getName(), new ProgressColorConfig(
-                new Color(75, 75, 75),
-                new Color(59, 59, 59),
-                new Color(32, 134, 226)));
+        ProgressColorConfig def = DEFAULT_PALETTE.get(ColorSwitch.LIGHT);
         this.resetColor(def);
     }
 
@@ -82,12 +82,12 @@ public class DProgress extends JComponent implements ColorSwitch, RoundBorder{
      * @param progressColorConfig 颜色配置文件
      */
     public void registerColorConfig(ColorConfig config, ProgressColorConfig progressColorConfig){
-        this.colorConfigMap.put(config.getName(), progressColorConfig);
+        this.palette = palette.with(config, progressColorConfig);
     }
 
     @Override
     public void switchColor(ColorConfig config) {
-        ProgressColorConfig progressColorConfig = colorConfigMap.get(config.getName());
+        ProgressColorConfig progressColorConfig = palette.get(config);
         if(progressColorConfig == null)
             throw new UnsupportedOperationException("未发现此配色方案的配置文件，请先为此实例注册配置文件！");
         this.resetColor(progressColorConfig);
@@ -101,7 +101,12 @@ public class DProgress extends JComponent implements ColorSwitch, RoundBorder{
     }
 
     public ProgressColorConfig getColorConfig(ColorConfig config){
-        return colorConfigMap.get(config.getName());
+        ProgressColorConfig colorConfig = palette.get(config);
+        if(colorConfig != null && colorConfig == DEFAULT_PALETTE.get(config)){
+            colorConfig = new ProgressColorConfig(colorConfig);
+            this.palette = palette.with(config, colorConfig);
+        }
+        return colorConfig;
     }
 
     public static class ProgressColorConfig{
@@ -115,6 +120,10 @@ public class DProgress extends JComponent implements ColorSwitch, RoundBorder{
             this.borderColor = borderColor;
             this.fillColor = fillColor;
         }
+
+        private ProgressColorConfig(ProgressColorConfig config){
+            this(config.borderColor, config.backgroundColor, config.fillColor);
+        }
     }
 
     private class DProgressUI extends ComponentUI {
@@ -124,12 +133,8 @@ public class DProgress extends JComponent implements ColorSwitch, RoundBorder{
             Graphics2D g2d = (Graphics2D) g;
             g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
             if(shape == LINE){
-                g2d.setColor(borderColor);
-                g2d.fillRoundRect(0, 0, getWidth(), getHeight(), arc, arc);
-                g2d.setColor(getBackground());
-                g2d.fillRoundRect(1, 1, getWidth() - 2, getHeight() - 2, arc, arc);
-                g2d.setColor(getForeground());
-                g2d.fillRoundRect(0, 0, (int) (getWidth() * value / max), getHeight(), arc, arc);
+                RoundRectCache.paint(g2d, 0, 0, getWidth(), getHeight(), arc, arc, borderColor, getBackground());
+                RoundRectCache.fill(g2d, 0, 0, (int) (getWidth() * value / max), getHeight(), arc, getForeground());
                 super.paint(g, c);
             }else if(shape == ROUND){
                 g2d.setStroke(new BasicStroke(4, BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND));
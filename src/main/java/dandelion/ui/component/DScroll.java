@@ -2,6 +2,8 @@ package dandelion.ui.component;
 
 import dandelion.ui.color.ColorConfig;
 import dandelion.ui.color.ColorSwitch;
+import dandelion.ui.color.Palette;
+import dandelion.ui.gui.SwitchRegistry;
 import dandelion.ui.lang.LanguageSwitch;
 import dandelion.ui.lang.i18n;
 
@@ -9,8 +11,6 @@ import javax.swing.*;
 import javax.swing.border.Border;
 import javax.swing.plaf.basic.BasicScrollBarUI;
 import java.awt.*;
-import java.util.HashMap;
-import java.util.Map;
 
 /**
  * 改进的JScrollPane滚动面板，采用圆角设计，包括滚动滑块和滑道都进行了
@@ -22,7 +22,12 @@ import java.util.Map;
 public class DScroll extends JScrollPane implements ColorSwitch, RoundBorder, LanguageSwitch {
 
     private int arc = 15;
-    private final Map<String, ScrollColorConfig> colorConfigMap = new HashMap<>();
+    private static final Palette<ScrollColorConfig> DEFAULT_PALETTE = Palette.<ScrollColorConfig>empty()
+            .with(ColorSwitch.LIGHT, new ScrollColorConfig(new Color(241, 241, 241),
+                    new Color(154, 154, 154), Color.white))
+            .with(ColorSwitch.DARK, new ScrollColorConfig(new Color(208, 208, 208), new Color(154, 154, 154),
+                    new Color(66, 66, 66)));
+    private Palette<ScrollColorConfig> palette = DEFAULT_PALETTE;
     private ColorConfig config = ColorSwitch.LIGHT;
     private Color thumbBarColor;
     private String language = i18n.getDefaultLanguage();
@@ -36,22 +41,16 @@ public class DScroll extends JScrollPane implements ColorSwitch, RoundBorder, La
         this.getHorizontalScrollBar().setBorder(new DScrollBorder(new Insets(3, 0, 0, 0)));
         this.getVerticalScrollBar().setBorder(new DScrollBorder(new Insets(0, 3, 0, 0)));
         this.setOpaque(false);
-        ScrollColorConfig def = new ScrollColorConfig(new Color(241, 241, 241),
-                new Color(154, 154, 154), Color.white);
-        this.registerColorConfig(ColorSwitch.LIGHT, def);
-        this.registerColorConfig(ColorSwitch.DARK,
-                new ScrollColorConfig(new Color(208, 208, 208), new Color(154, 154, 154),
-                        new Color(66, 66, 66)));
     }
 
     @Override
     public void switchColor(ColorConfig config) {
         this.config = config;
-        ScrollColorConfig scrollColorConfig = colorConfigMap.get(config.getName());
+        ScrollColorConfig scrollColorConfig = palette.get(config);
         if(scrollColorConfig == null)
             throw new UnsupportedOperationException("未发现此配色方案的配置文件，请先为此实例注册配置文件！");
         this.resetColor(scrollColorConfig);
-
+        if(SwitchRegistry.isCovered(this)) return;
         for(Component component : this.getViewport().getComponents()){
             if(component instanceof ColorSwitch){
                 ColorSwitch reverse = (ColorSwitch) component;
@@ -82,11 +81,16 @@ public class DScroll extends JScrollPane implements ColorSwitch, RoundBorder, La
     }
 
     public void registerColorConfig(ColorConfig config, ScrollColorConfig scrollColorConfig){
-        this.colorConfigMap.put(config.getName(), scrollColorConfig);
+        this.palette = palette.with(config, scrollColorConfig);
     }
 
     public ScrollColorConfig getColorConfig(ColorConfig config){
-        return colorConfigMap.get(config.getName());
+        ScrollColorConfig colorConfig = palette.get(config);
+        if(colorConfig != null && colorConfig == DEFAULT_PALETTE.get(config)){
+            colorConfig = new ScrollColorConfig(colorConfig);
+            this.palette = palette.with(config, colorConfig);
+        }
+        return colorConfig;
     }
 
     @Override
@@ -97,6 +101,7 @@ public class DScroll extends JScrollPane implements ColorSwitch, RoundBorder, La
     @Override
     public void switchLanguage(String language) {
         this.language = language;
+        if(SwitchRegistry.isCovered(this)) return;
         for(Component component : this.getViewport().getComponents()){
             if(component instanceof LanguageSwitch){
                 LanguageSwitch l = (LanguageSwitch) component;
@@ -123,6 +128,10 @@ public class DScroll extends JScrollPane implements ColorSwitch, RoundBorder, La
             this.thumbColor = thumbColor;
             this.background = background;
         }
+
+        private ScrollColorConfig(ScrollColorConfig config){
+            this(config.trackColor, config.thumbColor, config.background);
+        }
     }
 
     private class DScrollBarUI extends BasicScrollBarUI {
@@ -2,6 +2,7 @@ package dandelion.ui.component;
 
 import dandelion.ui.color.ColorConfig;
 import dandelion.ui.color.ColorSwitch;
+import dandelion.ui.color.Palette;
 import dandelion.ui.lang.LanguageSwitch;
 import dandelion.ui.lang.Text;
 import dandelion.ui.lang.i18n;
@@ -12,11 +13,7 @@ import javax.swing.plaf.basic.BasicComboBoxUI;
 import javax.swing.plaf.basic.BasicComboPopup;
 import javax.swing.plaf.basic.ComboPopup;
 import java.awt.*;
-import java.awt.font.FontRenderContext;
-import java.awt.geom.AffineTransform;
 import java.awt.geom.Rectangle2D;
-import java.util.HashMap;
-import java.util.Map;
 
 /**
  * 大面积重新编写的JComboBox，更加清爽的界面，支持组件、文本形式，
@@ -26,7 +23,12 @@ import java.util.Map;
  */
 public class DSelect<E> extends JComboBox<E> implements RoundBorder , ColorSwitch, LanguageSwitch {
     private String lang = i18n.getDefaultLanguage();
-    private final Map<String, SelectColorConfig> colorConfigMap = new HashMap<>();
+    private static final Palette<SelectColorConfig> DEFAULT_PALETTE = Palette.<SelectColorConfig>empty()
+            .with(ColorSwitch.LIGHT, new SelectColorConfig(Color.white, Color.black,
+                    new Color(45, 151, 231), Color.gray, new Color(193, 193, 193)))
+            .with(ColorSwitch.DARK, new SelectColorConfig(new Color(90, 90, 90), Color.white,
+                    new Color(36, 125, 193), Color.white, Color.darkGray));
+    private Palette<SelectColorConfig> palette = DEFAULT_PALETTE;
     private Color fontColor;
     private Color selectColor;
     private Color arrowColor;
@@ -44,13 +46,7 @@ public class DSelect<E> extends JComboBox<E> implements RoundBorder , ColorSwitc
         popup = ui.comboPopup;
         this.setOpaque(false);
 
-        SelectColorConfig def =
-                new SelectColorConfig(Color.white, Color.black,
-                        new Color(45, 151, 231), Color.gray, new Color(193, 193, 193));
-        this.registerColorConfig(ColorSwitch.LIGHT, def);
-        this.registerColorConfig(ColorSwitch.DARK,
-                new SelectColorConfig(new Color(90, 90, 90), Color.white,
-                        new Color(36, 125, 193), Color.white, Color.darkGray));
+        SelectColorConfig def = DEFAULT_PALETTE.get(ColorSwitch.LIGHT);
         this.setBackground(def.backgroundColor);
         this.fontColor = def.fontColor;
         this.arrowColor = def.arrowColor;
@@ -65,12 +61,12 @@ public class DSelect<E> extends JComboBox<E> implements RoundBorder , ColorSwitc
     }
 
     public void registerColorConfig(ColorConfig config, SelectColorConfig selectColorConfig){
-        this.colorConfigMap.put(config.getName(), selectColorConfig);
+        this.palette = palette.with(config, selectColorConfig);
     }
 
     @Override
     public void switchColor(ColorConfig config) {
-        SelectColorConfig selectColorConfig = colorConfigMap.get(config.getName());
+        SelectColorConfig selectColorConfig = palette.get(config);
         if(selectColorConfig == null)
             throw new UnsupportedOperationException("未发现此配色方案的配置文件，请先为此实例注册配置文件！");
         this.setBackground(selectColorConfig.backgroundColor);
@@ -102,7 +98,12 @@ public class DSelect<E> extends JComboBox<E> implements RoundBorder , ColorSwitc
     }
 
     public SelectColorConfig getColorConfig(ColorConfig config){
-        return colorConfigMap.get(config.getName());
+        SelectColorConfig colorConfig = palette.get(config);
+        if(colorConfig != null && colorConfig == DEFAULT_PALETTE.get(config)){
+            colorConfig = new SelectColorConfig(colorConfig);
+            this.palette = palette.with(config, colorConfig);
+        }
+        return colorConfig;
     }
 
     public static class SelectColorConfig{
@@ -119,6 +120,10 @@ public class DSelect<E> extends JComboBox<E> implements RoundBorder , ColorSwitc
             this.arrowColor = arrowColor;
             this.borderColor = borderColor;
         }
+
+        private SelectColorConfig(SelectColorConfig config){
+            this(config.backgroundColor, config.fontColor, config.selectColor, config.arrowColor, config.borderColor);
+        }
     }
 
     private class XListItemRender implements ListCellRenderer<E>{
@@ -169,7 +174,7 @@ public class DSelect<E> extends JComboBox<E> implements RoundBorder , ColorSwitc
         }
 
         private Rectangle2D getTextBounds(Font font, String text){
-            return font.getStringBounds(text, new FontRenderContext(new AffineTransform(), true, true));
+            return TextMetrics.getStringBounds(font, text);
         }
     }
 
@@ -203,14 +208,8 @@ public class DSelect<E> extends JComboBox<E> implements RoundBorder , ColorSwitc
             Object value = comboBox.getSelectedItem();
             Graphics2D g2d = (Graphics2D) g;
             g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-            g2d.setColor(borderColor);
-            g2d.fillRoundRect(0 ,0, c.getWidth(), c.getHeight(), comboPopup.arc,comboPopup.arc);
-            if(comboBox.isEnabled()){
-                g2d.setColor(comboBox.getBackground());
-            }else {
-                g2d.setColor(new Color(217, 217, 217));
-            }
-            g2d.fillRoundRect(1 ,1, c.getWidth()-2, c.getHeight()-2, comboPopup.arc,comboPopup.arc);
+            RoundRectCache.paint(g2d, 0, 0, c.getWidth(), c.getHeight(), comboPopup.arc, comboPopup.arc,
+                    borderColor, comboBox.isEnabled() ? comboBox.getBackground() : new Color(217, 217, 217));
             if(comboBox.isEnabled()){
                 g2d.setColor(fontColor);
             }else {
@@ -236,7 +235,7 @@ public class DSelect<E> extends JComboBox<E> implements RoundBorder , ColorSwitc
         public void paintCurrentValue(Graphics g, Rectangle bounds, boolean hasFocus) { }
 
         private Rectangle2D getTextBounds(Font font, String text){
-            return font.getStringBounds(text, new FontRenderContext(new AffineTransform(), true, true));
+            return TextMetrics.getStringBounds(font, text);
         }
     }
 
@@ -2,14 +2,13 @@ package dandelion.ui.component;
 
 import dandelion.ui.color.ColorConfig;
 import dandelion.ui.color.ColorSwitch;
+import dandelion.ui.color.Palette;
 import dandelion.ui.lang.LanguageSwitch;
 
 import javax.swing.*;
 import javax.swing.plaf.basic.BasicSliderUI;
 import java.awt.*;
 import java.util.Enumeration;
-import java.util.HashMap;
-import java.util.Map;
 
 /**
  * 全新设计的圆形滚动按钮，仅支持主刻度显示，支持颜色变换和多语言。
@@ -20,7 +19,10 @@ import java.util.Map;
  */
 public class DSlider extends JSlider implements ColorSwitch, LanguageSwitch {
 
-    private final Map<String, SliderColorConfig> colorConfigMap = new HashMap<>();
+    private static final Palette<SliderColorConfig> DEFAULT_PALETTE = Palette.<SliderColorConfig>empty()
+            .with(ColorSwitch.LIGHT, new SliderColorConfig(Color.lightGray, Color.white, Color.black))
+            .with(ColorSwitch.DARK, new SliderColorConfig(new Color(111, 111, 111), new Color(61, 61, 61), Color.white));
+    private Palette<SliderColorConfig> palette = DEFAULT_PALETTE;
     private Color borderColor;
 
     /**
@@ -42,11 +44,7 @@ public class DSlider extends JSlider implements ColorSwitch, LanguageSwitch {
         this.setPaintLabels(true);
         this.setUI(new XSliderUI(this));
         this.setOpaque(false);
-        SliderColorConfig def =
-                new SliderColorConfig(Color.lightGray, Color.white, Color.black);
-        this.registerColorConfig(ColorSwitch.LIGHT, def);
-        this.registerColorConfig(ColorSwitch.DARK,
-                new SliderColorConfig(new Color(111, 111, 111), new Color(61, 61, 61), Color.white));
+        SliderColorConfig def = DEFAULT_PALETTE.get(ColorSwitch.LIGHT);
         this.setBackground(def.backgroundColor);
         this.setForeground(def.fontColor);
         this.borderColor = def.borderColor;
@@ -80,7 +78,7 @@ public class DSlider extends JSlider implements ColorSwitch, LanguageSwitch {
 
     @Override
     public void switchColor(ColorConfig config) {
-        SliderColorConfig sliderColorConfig = colorConfigMap.get(config.getName());
+        SliderColorConfig sliderColorConfig = palette.get(config);
         if(sliderColorConfig == null)
             throw new UnsupportedOperationException("未发现此配色方案的配置文件，请先为此实例注册配置文件！");
         this.setBackground(sliderColorConfig.backgroundColor);
@@ -113,11 +111,16 @@ public class DSlider extends JSlider implements ColorSwitch, LanguageSwitch {
     }
 
     public void registerColorConfig(ColorConfig config, SliderColorConfig sliderColorConfig){
-        this.colorConfigMap.put(config.getName(), sliderColorConfig);
+        this.palette = palette.with(config, sliderColorConfig);
     }
 
     public SliderColorConfig getColorConfig(ColorConfig config){
-        return colorConfigMap.get(config.getName());
+        SliderColorConfig colorConfig = palette.get(config);
+        if(colorConfig != null && colorConfig == DEFAULT_PALETTE.get(config)){
+            colorConfig = new SliderColorConfig(colorConfig);
+            this.palette = palette.with(config, colorConfig);
+        }
+        return colorConfig;
     }
 
     public static class SliderColorConfig{
@@ -130,6 +133,10 @@ public class DSlider extends JSlider implements ColorSwitch, LanguageSwitch {
             this.backgroundColor = backgroundColor;
             this.fontColor = fontColor;
         }
+
+        private SliderColorConfig(SliderColorConfig config){
+            this(config.borderColor, config.backgroundColor, config.fontColor);
+        }
     }
 
     private class XSliderUI extends BasicSliderUI{
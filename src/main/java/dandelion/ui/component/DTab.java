@@ -2,7 +2,9 @@ package dandelion.ui.component;
 
 import dandelion.ui.color.ColorConfig;
 import dandelion.ui.color.ColorSwitch;
+import dandelion.ui.color.Palette;
 import dandelion.ui.gui.Gui;
+import dandelion.ui.gui.SwitchRegistry;
 import dandelion.ui.lang.LanguageSwitch;
 import dandelion.ui.lang.i18n;
 
@@ -13,12 +15,9 @@ import java.awt.*;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.awt.event.MouseMotionListener;
-import java.awt.font.FontRenderContext;
-import java.awt.geom.AffineTransform;
 import java.awt.geom.Rectangle2D;
 import java.awt.image.ImageObserver;
-import java.util.HashMap;
-import java.util.Map;
+import java.beans.PropertyChangeListener;
 
 /**
  * 改进的JTabbedPane，样式几乎被完全重写，全部采用圆角设计
@@ -29,7 +28,12 @@ import java.util.Map;
  */
 public class DTab extends JTabbedPane implements RoundBorder, ColorSwitch, LanguageSwitch {
 
-    private final Map<String, TabColorConfig> colorConfigMap = new HashMap<>();
+    private static final Palette<TabColorConfig> DEFAULT_PALETTE = Palette.<TabColorConfig>empty()
+            .with(ColorSwitch.LIGHT, new TabColorConfig(new Color(248, 248, 248),
+                    Color.lightGray, Color.lightGray, Color.black, Color.darkGray))
+            .with(ColorSwitch.DARK, new TabColorConfig(new Color(54, 54, 54), Color.black,
+                    Color.black, Color.white, Color.lightGray));
+    private Palette<TabColorConfig> palette = DEFAULT_PALETTE;
     private final Dimension tabSize = new Dimension(100, 30);
     private Color mainColor;
     private Color borderColor;
@@ -39,6 +43,10 @@ public class DTab extends JTabbedPane implements RoundBorder, ColorSwitch, Langu
     private ColorConfig selectedColor = ColorSwitch.LIGHT;
     private String language = i18n.getDefaultLanguage();
     private int arc = 15;
+    private final PropertyChangeListener titleListener = e -> {
+        int index = indexOfComponent((Component) e.getSource());
+        if(index >= 0) setTitleAt(index, (String) e.getNewValue());
+    };
 
     public DTab(Gui parent){
         DTabUI ui = new DTabUI();
@@ -54,12 +62,7 @@ public class DTab extends JTabbedPane implements RoundBorder, ColorSwitch, Langu
             @Override
             public boolean isBorderOpaque() { return false;}
         });
-        TabColorConfig def = new TabColorConfig(new Color(248, 248, 248),
-                Color.lightGray, Color.lightGray, Color.black, Color.darkGray);
-        this.registerColorConfig(ColorSwitch.LIGHT, def);
-        this.registerColorConfig(ColorSwitch.DARK,
-                new TabColorConfig(new Color(54, 54, 54), Color.black,
-                        Color.black, Color.white, Color.lightGray));
+        TabColorConfig def = DEFAULT_PALETTE.get(ColorSwitch.LIGHT);
         this.resetColor(def);
         this.addMouseMotionListener(new MouseAdapter() {
             @Override
@@ -85,12 +88,13 @@ public class DTab extends JTabbedPane implements RoundBorder, ColorSwitch, Langu
     @Override
     public void switchColor(ColorConfig config) {
         this.selectedColor = config;
-        TabColorConfig tabColorConfig = colorConfigMap.get(config.getName());
+        TabColorConfig tabColorConfig = palette.get(config);
         if(tabColorConfig == null)
             throw new UnsupportedOperationException("未发现此配色方案的配置文件，请先为此实例注册配置文件！");
+        boolean covered = SwitchRegistry.isCovered(this);
         for (int i = 0; i < getTabCount(); i++) {
             Component component = getComponentAt(i);
-            if(component instanceof ColorSwitch) ((ColorSwitch) component).switchColor(config);
+            if(component instanceof ColorSwitch && !covered) ((ColorSwitch) component).switchColor(config);
             Icon icon = getIconAt(i);
             if(icon instanceof ColorSwitch) ((ColorSwitch) icon).switchColor(config);
         }
@@ -98,7 +102,7 @@ public class DTab extends JTabbedPane implements RoundBorder, ColorSwitch, Langu
     }
 
     public void registerColorConfig(ColorConfig config, TabColorConfig tabColorConfig){
-        this.colorConfigMap.put(config.getName(), tabColorConfig);
+        this.palette = palette.with(config, tabColorConfig);
     }
 
     /**
@@ -116,14 +120,31 @@ public class DTab extends JTabbedPane implements RoundBorder, ColorSwitch, Langu
     @Override
     public void switchLanguage(String language) {
         this.language = language;
+        boolean covered = SwitchRegistry.isCovered(this);
         for (int i = 0; i < getTabCount(); i++) {
             Component component = getComponentAt(i);
-            if(component instanceof LanguageSwitch)
+            if(component instanceof LanguageSwitch && !covered)
                 ((LanguageSwitch) component).switchLanguage(language);
             this.setTitleAt(i, component.getName());
         }
     }
 
+    /**
+     * 标签标题跟随面板名称变化，由订阅表切换语言时，面板可能晚于本组件完成切换。
+     */
+    @Override
+    public void insertTab(String title, Icon icon, Component component, String tip, int index) {
+        super.insertTab(title, icon, component, tip, index);
+        component.removePropertyChangeListener("name", titleListener);
+        component.addPropertyChangeListener("name", titleListener);
+    }
+
+    @Override
+    public void removeTabAt(int index) {
+        getComponentAt(index).removePropertyChangeListener("name", titleListener);
+        super.removeTabAt(index);
+    }
+
     private void resetColor(TabColorConfig config){
         this.mainColor = config.mainColor;
         this.borderColor = config.borderColor;
@@ -133,7 +154,12 @@ public class DTab extends JTabbedPane implements RoundBorder, ColorSwitch, Langu
     }
 
     public TabColorConfig getColorConfig(ColorConfig config){
-        return colorConfigMap.get(config.getName());
+        TabColorConfig colorConfig = palette.get(config);
+        if(colorConfig != null && colorConfig == DEFAULT_PALETTE.get(config)){
+            colorConfig = new TabColorConfig(colorConfig);
+            this.palette = palette.with(config, colorConfig);
+        }
+        return colorConfig;
     }
 
     public static class TabColorConfig{
@@ -150,6 +176,10 @@ public class DTab extends JTabbedPane implements RoundBorder, ColorSwitch, Langu
             this.mainFontColor = mainFontColor;
             this.subFontColor = subFontColor;
         }
+
+        private TabColorConfig(TabColorConfig config){
+            this(config.mainColor, config.borderColor, config.subColor, config.mainFontColor, config.subFontColor);
+        }
     }
 
     private class DTabUI extends BasicTabbedPaneUI {
@@ -239,7 +269,7 @@ public class DTab extends JTabbedPane implements RoundBorder, ColorSwitch, Langu
         }
 
         private Rectangle2D getTextBounds(String text){
-            return getFont().getStringBounds(text, new FontRenderContext(new AffineTransform(), true, true));
+            return TextMetrics.getStringBounds(getFont(), text);
         }
     }
 }
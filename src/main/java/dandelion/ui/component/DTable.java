@@ -2,16 +2,25 @@ package dandelion.ui.component;
 
 import dandelion.ui.color.ColorConfig;
 import dandelion.ui.color.ColorSwitch;
+import dandelion.ui.color.Palette;
 import dandelion.ui.lang.LanguageSwitch;
 import dandelion.ui.lang.i18n;
 
 import javax.swing.*;
+import javax.swing.Timer;
+import javax.swing.event.TableModelEvent;
 import javax.swing.plaf.basic.BasicTableUI;
 import javax.swing.table.DefaultTableCellRenderer;
 import javax.swing.table.DefaultTableModel;
+import javax.swing.table.TableCellRenderer;
+import javax.swing.table.TableModel;
 import java.awt.*;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.*;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.IntPredicate;
 
 /**
  * 添加了颜色切换和语言切换支持JTable组件，后期会继续深度定制。
@@ -20,11 +29,43 @@ import java.util.Map;
  * @since 1.1
  */
 public class DTable extends JTable implements ColorSwitch, LanguageSwitch {
+    private static final Object NULL = new Object();
+    private static final Set<DTable> FLASHING = Collections.newSetFromMap(new WeakHashMap<>());
+    private static final Timer FLASH_CLOCK = new Timer(33, e -> {
+        long now = System.currentTimeMillis();
+        FLASHING.removeIf(table -> !table.tickFlash(now));
+        if(FLASHING.isEmpty()) ((Timer) e.getSource()).stop();
+    });
 
-    private final Map<String, TableColorConfig> colorConfigMap = new HashMap<>();
+    private static final Palette<TableColorConfig> DEFAULT_PALETTE = Palette.<TableColorConfig>empty()
+            .with(ColorSwitch.LIGHT, new TableColorConfig(new Color(76, 152, 250), Color.white, Color.lightGray,
+                    Color.black, Color.white, Color.white))
+            .with(ColorSwitch.DARK, new TableColorConfig(new Color(56, 127, 215), Color.white, Color.lightGray,
+                    Color.white, Color.black, Color.darkGray));
+    private Palette<TableColorConfig> palette = DEFAULT_PALETTE;
     private boolean editable = false;
     private final DTableCellRender render = new DTableCellRender();
+    private final DTableCellRender translatedRender = new DTableCellRender();
+    private final NumberCellRenderer integerRender = new NumberCellRenderer();
+    private TableCellRenderer[] columnRenders = new TableCellRenderer[0];
+    private final BitSet translatable = new BitSet();
+    private final Map<String, String> translations = new LinkedHashMap<String, String>(64, 0.75f, true){
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+            return size() > 1024;
+        }
+    };
     private String language = i18n.getDefaultLanguage();
+    private final Queue<Object[]> pendingRows = new ConcurrentLinkedQueue<>();
+    private final Map<Long, Object> pendingCells = new ConcurrentHashMap<>();
+    private final AtomicBoolean frameScheduled = new AtomicBoolean();
+    private final Timer frameTimer = new Timer(16, e -> this.flush());
+    private final Map<Long, Long> flashing = new HashMap<>();
+    private int flashDuration = 0;
+    private Color flashColor = new Color(255, 196, 0);
+    private int rowLimit = 0;
+    private boolean autoScroll = false;
+    private boolean sortable = false;
 
     public DTable(int width, int height){
         this();
@@ -35,18 +76,14 @@ public class DTable extends JTable implements ColorSwitch, LanguageSwitch {
         this.setUI(new BasicTableUI());
         this.setOpaque(false);
         this.getTableHeader().setDefaultRenderer(render);
-        TableColorConfig def =
-                new TableColorConfig(new Color(76, 152, 250), Color.white, Color.lightGray,
-                        Color.black, Color.white, Color.white);
-        this.registerColorConfig(ColorSwitch.LIGHT, def);
-        this.registerColorConfig(ColorSwitch.DARK,
-                new TableColorConfig(new Color(56, 127, 215), Color.white, Color.lightGray,
-                        Color.white, Color.black, Color.darkGray));
+        TableColorConfig def = DEFAULT_PALETTE.get(ColorSwitch.LIGHT);
         this.resetColor(def);
+        frameTimer.setRepeats(false);
     }
 
     public void setEditable(boolean editable) {
         this.editable = editable;
+        if(getModel() instanceof ColumnTableModel) ((ColumnTableModel) getModel()).setEditable(editable);
     }
 
     private void resetColor(TableColorConfig config){
@@ -61,7 +98,7 @@ public class DTable extends JTable implements ColorSwitch, LanguageSwitch {
 
     @Override
     public void switchColor(ColorConfig config) {
-        TableColorConfig tableColorConfig = colorConfigMap.get(config.getName());
+        TableColorConfig tableColorConfig = palette.get(config);
         if(tableColorConfig == null)
             throw new UnsupportedOperationException("未发现此配色方案的配置文件，请先为此实例注册配置文件！");
         this.resetColor(tableColorConfig);
@@ -70,14 +107,92 @@ public class DTable extends JTable implements ColorSwitch, LanguageSwitch {
     @Override
     public void switchLanguage(String language) {
         this.language = language;
+        translations.clear();
+        this.getTableHeader().repaint();
+        this.repaint();
+    }
+
+    /**
+     * 为某一列指定单元格渲染器，优先于其他所有渲染器，例如为小数列指定
+     * <code>new NumberCellRenderer(2, true)</code> 以固定的小数位数显示
+     * @param column 数据模型中的列号
+     * @param renderer 渲染器，为null时恢复默认
+     *
+     * @since 1.2
+     */
+    public void setColumnRenderer(int column, TableCellRenderer renderer){
+        if(column >= columnRenders.length) columnRenders = Arrays.copyOf(columnRenders, column + 1);
+        columnRenders[column] = renderer;
+        this.repaint();
+    }
+
+    public TableCellRenderer getColumnRenderer(int column){
+        return column < columnRenders.length ? columnRenders[column] : null;
+    }
+
+    /**
+     * 设置某一列的内容是否需要翻译，只有需要翻译的列才会对单元格内容进行
+     * 国际化处理，翻译结果按语言缓存，表头始终会被翻译。
+     * @param column 数据模型中的列号
+     * @param translatable 是否需要翻译
+     *
+     * @since 1.2
+     */
+    public void setTranslatable(int column, boolean translatable){
+        this.translatable.set(column, translatable);
+        this.repaint();
+    }
+
+    public boolean isTranslatable(int column){
+        return translatable.get(column);
+    }
+
+    /**
+     * 依次查找：为这一列指定的渲染器、需要翻译的列、表格列自带的渲染器，
+     * 使用ColumnTableModel时整数列使用不创建字符串的数字渲染器，最后按
+     * 列的类型使用JTable默认的渲染器。小数列默认按地区格式显示，需要固定
+     * 小数位数时可以通过 {@link #setColumnRenderer} 指定 {@link NumberCellRenderer}。
+     */
+    @Override
+    public TableCellRenderer getCellRenderer(int row, int column) {
+        int modelColumn = this.convertColumnIndexToModel(column);
+        if(modelColumn < columnRenders.length && columnRenders[modelColumn] != null) return columnRenders[modelColumn];
+        if(translatable.get(modelColumn)) return translatedRender;
+        if(getColumnModel().getColumn(column).getCellRenderer() == null && getModel() instanceof ColumnTableModel){
+            switch (((ColumnTableModel) getModel()).getColumnType(modelColumn)){
+                case ColumnTableModel.INT:
+                case ColumnTableModel.LONG:
+                    return integerRender;
+            }
+        }
+        return super.getCellRenderer(row, column);
+    }
+
+    /**
+     * 翻译单元格内容，每种语言的结果会被缓存
+     */
+    private String translate(Object value){
+        if(value == null) return "";
+        String text = value.toString();
+        String result = translations.get(text);
+        if(result == null){
+            result = i18n.format(text, language);
+            translations.put(text, result);
+        }
+        return result;
     }
 
     public void registerColorConfig(ColorConfig config, TableColorConfig tableColorConfig){
-        this.colorConfigMap.put(config.getName(), tableColorConfig);
+        this.palette = palette.with(config, tableColorConfig);
     }
 
     public TableColorConfig getColorConfig(ColorConfig config){
-        return colorConfigMap.get(config.getName());
+        TableColorConfig colorConfig = palette.get(config);
+        if(colorConfig != null && colorConfig == DEFAULT_PALETTE.get(config)){
+            colorConfig = new TableColorConfig(colorConfig);
+            this.palette = palette.with(config, colorConfig);
+        }
+        return colorConfig;
     }
 
     /**
@@ -90,6 +205,362 @@ public class DTable extends JTable implements ColorSwitch, LanguageSwitch {
         this.setModel(model);
     }
 
+    /**
+     * 使用按列存储的数据模型，适合大量数值数据，是否可编辑与当前表格的设置相同
+     * @param model 数据模型
+     *
+     * @since 1.2
+     */
+    public void setColumnData(ColumnTableModel model){
+        model.setEditable(editable);
+        this.setModel(model);
+    }
+
+    /**
+     * 是否允许点击表头排序，排序和筛选在后台线程中并行计算，不会阻塞界面，
+     * 详见 {@link ParallelRowSorter}。
+     * @param sortable 是否允许排序
+     *
+     * @since 1.2
+     */
+    public void setSortable(boolean sortable) {
+        this.sortable = sortable;
+        this.setRowSorter(sortable ? new ParallelRowSorter(getModel()) : null);
+    }
+
+    public boolean isSortable() {
+        return sortable;
+    }
+
+    /**
+     * 设置筛选条件，没有开启排序时会自动开启
+     * @param filter 筛选条件，参数为数据模型中的行号，会在多个线程中同时调用，为null时显示所有行
+     *
+     * @since 1.2
+     */
+    public void setRowFilter(IntPredicate filter){
+        if(!(getRowSorter() instanceof ParallelRowSorter)) this.setSortable(true);
+        ((ParallelRowSorter) getRowSorter()).setFilter(filter);
+    }
+
+    @Override
+    public void setModel(TableModel model) {
+        super.setModel(model);
+        if(sortable) this.setRowSorter(new ParallelRowSorter(model));
+    }
+
+    /**
+     * 追加一行数据，可以在任意线程中调用。数据先放入队列，每一帧最多在EDT中
+     * 合并处理一次，无论这期间追加了多少行都只触发一次表格事件。当前数据模型
+     * 必须是 {@link ColumnTableModel} 或者 {@link DefaultTableModel}。
+     *
+     * <p>
+     * 数据在调用者的线程中检查，使用ColumnTableModel时数值列的字符串也会在这里
+     * 解析，错误的数据会直接抛出异常，不会影响同一帧中其他线程追加的数据。
+     * 队列中保存的是数据的副本，方法返回后调用者可以继续复用传入的数组。
+     * @param values 每一列的值，数量必须与列数相同
+     * @throws IllegalArgumentException 数据数量与列数不一致，或者无法转换为对应列的类型
+     * @throws UnsupportedOperationException 当前数据模型不支持追加数据
+     *
+     * @since 1.2
+     */
+    public void appendRow(Object... values){
+        TableModel model = getModel();
+        if(!(model instanceof ColumnTableModel) && !(model instanceof DefaultTableModel))
+            throw new UnsupportedOperationException("当前数据模型不支持追加数据，请使用ColumnTableModel或者DefaultTableModel！");
+        if(values.length != model.getColumnCount()) throw new IllegalArgumentException("数据数量与列数不一致！");
+        if(model instanceof ColumnTableModel){
+            ColumnTableModel columnModel = (ColumnTableModel) model;
+            Object[] converted = new Object[values.length];
+            for (int i = 0; i < values.length; i++) converted[i] = columnModel.convert(i, values[i]);
+            values = converted;
+        }else {
+            values = values.clone();
+        }
+        pendingRows.add(values);
+        this.scheduleFrame();
+    }
+
+    /**
+     * 更新一个单元格的值，可以在任意线程中调用。同一帧内对同一个单元格的
+     * 多次更新只保留最后一次，每一帧在EDT中统一写入数据模型，并且只重绘
+     * 可见范围内发生变化的单元格。
+     *
+     * <p>
+     * 为了避免大量的表格事件，写入 {@link ColumnTableModel} 或者
+     * {@link DefaultTableModel} 时不会触发表格事件，排序和筛选不会因此更新；
+     * 其他数据模型会通过setValueAt写入。行列号和值在调用者的线程中检查，
+     * 写入时还不存在的行会被忽略。
+     * @param row 数据模型中的行号
+     * @param column 数据模型中的列号
+     * @param value 新的值
+     * @throws IndexOutOfBoundsException 行号或列号超出范围
+     * @throws IllegalArgumentException 值无法转换为ColumnTableModel中这一列的类型
+     *
+     * @since 1.2
+     */
+    public void updateCell(int row, int column, Object value){
+        TableModel model = getModel();
+        if(row < 0 || column < 0 || column >= model.getColumnCount())
+            throw new IndexOutOfBoundsException("单元格超出范围："+row+", "+column);
+        if(model instanceof ColumnTableModel) value = ((ColumnTableModel) model).convert(column, value);
+        pendingCells.put(cellKey(row, column), value == null ? NULL : value);
+        this.scheduleFrame();
+    }
+
+    /**
+     * 单元格更新后高亮显示一段时间，逐渐淡出，为0时不高亮。所有表格共用
+     * 同一个动画时钟。
+     * @param flashDuration 高亮时间（毫秒）
+     *
+     * @since 1.2
+     */
+    public void setFlashDuration(int flashDuration) {
+        if(flashDuration < 0) throw new IllegalArgumentException("高亮时间不能为负数！");
+        this.flashDuration = flashDuration;
+    }
+
+    public int getFlashDuration() {
+        return flashDuration;
+    }
+
+    public void setFlashColor(Color flashColor) {
+        this.flashColor = flashColor;
+    }
+
+    public Color getFlashColor() {
+        return flashColor;
+    }
+
+    private void scheduleFrame(){
+        if(frameScheduled.compareAndSet(false, true)) SwingUtilities.invokeLater(frameTimer::restart);
+    }
+
+    private void flush(){
+        frameScheduled.set(false);
+        try {
+            this.drainCells();
+        }finally {
+            this.drainRows();
+        }
+    }
+
+    private void drainCells(){
+        if(pendingCells.isEmpty()) return;
+        TableModel model = getModel();
+        Rectangle visible = this.getVisibleRect();
+        long now = System.currentTimeMillis();
+        for (Long cell : pendingCells.keySet()){
+            //取出的同时删除，期间其他线程写入的新值会留到下一帧
+            Object value = pendingCells.remove(cell);
+            if(value == null) continue;
+            if(value == NULL) value = null;
+            long key = cell;
+            int row = (int) (key >>> 32), column = (int) key;
+            if(row >= model.getRowCount() || column >= model.getColumnCount()) continue;
+            //某个单元格写入失败时不影响其他单元格
+            try {
+                if(model instanceof ColumnTableModel){
+                    ((ColumnTableModel) model).putValue(row, column, value);
+                }else if(model instanceof DefaultTableModel){
+                    ((Vector<?>) ((DefaultTableModel) model).getDataVector().get(row)).set(column, cast(value));
+                }else {
+                    model.setValueAt(value, row, column);
+                    continue;
+                }
+            }catch (RuntimeException e){
+                e.printStackTrace();
+                continue;
+            }
+            if(flashDuration > 0) flashing.put(key, now);
+            this.repaintCell(row, column, visible);
+        }
+        if(!flashing.isEmpty()) FLASHING.add(this);
+        if(!FLASHING.isEmpty() && !FLASH_CLOCK.isRunning()) FLASH_CLOCK.start();
+    }
+
+    /**
+     * 高亮按数据模型中的行号记录，插入或删除行之后需要同步移动，
+     * 整个表格的数据变化时清除所有高亮
+     */
+    @Override
+    public void tableChanged(TableModelEvent e) {
+        super.tableChanged(e);
+        if(flashing == null || flashing.isEmpty()) return;
+        int first = e.getFirstRow(), last = e.getLastRow();
+        if(first == TableModelEvent.HEADER_ROW || last == Integer.MAX_VALUE){
+            flashing.clear();
+            return;
+        }
+        if(e.getType() == TableModelEvent.UPDATE) return;
+        int count = last - first + 1;
+        Map<Long, Long> rebased = new HashMap<>();
+        for (Map.Entry<Long, Long> entry : flashing.entrySet()){
+            long key = entry.getKey();
+            int row = (int) (key >>> 32), column = (int) key;
+            if(row >= first){
+                if(e.getType() == TableModelEvent.INSERT) row += count;
+                else if(row > last) row -= count;
+                else continue;
+            }
+            rebased.put(cellKey(row, column), entry.getValue());
+        }
+        flashing.clear();
+        flashing.putAll(rebased);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T cast(Object value){
+        return (T) value;
+    }
+
+    /**
+     * 只重绘可见范围内的单元格，行列号为数据模型中的序号
+     */
+    private void repaintCell(int row, int column, Rectangle visible){
+        int viewRow = this.convertRowIndexToView(row), viewColumn = this.convertColumnIndexToView(column);
+        if(viewRow < 0 || viewColumn < 0) return;
+        Rectangle rect = this.getCellRect(viewRow, viewColumn, true);
+        if(rect.intersects(visible)) this.repaint(rect);
+    }
+
+    /**
+     * 动画时钟的每一帧，重绘正在高亮的单元格，移除已经结束的高亮
+     * @return 是否还有正在高亮的单元格
+     */
+    private boolean tickFlash(long now){
+        Rectangle visible = this.getVisibleRect();
+        for (Iterator<Map.Entry<Long, Long>> iterator = flashing.entrySet().iterator(); iterator.hasNext(); ){
+            Map.Entry<Long, Long> entry = iterator.next();
+            long key = entry.getKey();
+            if(now - entry.getValue() >= flashDuration) iterator.remove();
+            if((int) (key >>> 32) < getModel().getRowCount()) this.repaintCell((int) (key >>> 32), (int) key, visible);
+        }
+        return !flashing.isEmpty();
+    }
+
+    @Override
+    public Component prepareRenderer(TableCellRenderer renderer, int row, int column) {
+        Component component = renderer instanceof NumberCellRenderer && getModel() instanceof ColumnTableModel
+                ? this.prepareNumber((NumberCellRenderer) renderer, row, column) : null;
+        if(component == null) component = super.prepareRenderer(renderer, row, column);
+        if(!flashing.isEmpty()){
+            Long start = flashing.get(cellKey(this.convertRowIndexToModel(row), this.convertColumnIndexToModel(column)));
+            if(start != null && flashDuration > 0){
+                float alpha = 1 - (float) (System.currentTimeMillis() - start) / flashDuration;
+                if(alpha > 0) component.setBackground(blend(component.getBackground(), flashColor, alpha));
+            }
+        }
+        return component;
+    }
+
+    /**
+     * 直接从ColumnTableModel读取基本类型的值交给数字渲染器，不经过getValueAt，
+     * 不会产生装箱
+     * @return 渲染组件，不是数值列时为null
+     */
+    private Component prepareNumber(NumberCellRenderer renderer, int row, int column){
+        ColumnTableModel model = (ColumnTableModel) getModel();
+        int modelRow = this.convertRowIndexToModel(row), modelColumn = this.convertColumnIndexToModel(column);
+        int type = model.getColumnType(modelColumn);
+        if(type == ColumnTableModel.STRING) return null;
+        boolean isSelected = this.isCellSelected(row, column);
+        boolean hasFocus = getSelectionModel().getLeadSelectionIndex() == row
+                && getColumnModel().getSelectionModel().getLeadSelectionIndex() == column && this.isFocusOwner();
+        Component component = renderer.getTableCellRendererComponent(this, null, isSelected, hasFocus, row, column);
+        switch (type){
+            case ColumnTableModel.INT:
+                renderer.setNumber((long) model.getInt(modelRow, modelColumn));
+                break;
+            case ColumnTableModel.LONG:
+                renderer.setNumber(model.getLong(modelRow, modelColumn));
+                break;
+            default:
+                renderer.setNumber(model.getDouble(modelRow, modelColumn));
+        }
+        return component;
+    }
+
+    private static Color blend(Color base, Color color, float alpha){
+        return new Color((int) (base.getRed() + (color.getRed() - base.getRed()) * alpha),
+                (int) (base.getGreen() + (color.getGreen() - base.getGreen()) * alpha),
+                (int) (base.getBlue() + (color.getBlue() - base.getBlue()) * alpha));
+    }
+
+    private static long cellKey(int row, int column){
+        return ((long) row << 32) | (column & 0xffffffffL);
+    }
+
+    /**
+     * 设置最多保留的行数，超出时删除最早的行，为0时不限制。
+     * @param rowLimit 行数
+     *
+     * @since 1.2
+     */
+    public void setRowLimit(int rowLimit) {
+        if(rowLimit < 0) throw new IllegalArgumentException("行数不能为负数！");
+        this.rowLimit = rowLimit;
+    }
+
+    public int getRowLimit() {
+        return rowLimit;
+    }
+
+    /**
+     * 追加数据后是否自动滚动到最后一行
+     * @param autoScroll 是否自动滚动
+     *
+     * @since 1.2
+     */
+    public void setAutoScroll(boolean autoScroll) {
+        this.autoScroll = autoScroll;
+    }
+
+    public boolean isAutoScroll() {
+        return autoScroll;
+    }
+
+    private void drainRows(){
+        List<Object[]> rows = new ArrayList<>();
+        Object[] row;
+        while ((row = pendingRows.poll()) != null) rows.add(row);
+        if(rows.isEmpty()) return;
+        TableModel model = getModel();
+        //检查之后数据模型可能被更换，列数不一致的数据直接丢弃
+        int columns = model.getColumnCount();
+        rows.removeIf(values -> values.length != columns);
+        if(rows.isEmpty()) return;
+        //超出保留行数的部分不需要先添加再删除
+        if(rowLimit > 0 && rows.size() > rowLimit) rows = rows.subList(rows.size() - rowLimit, rows.size());
+        int overflow = rowLimit > 0 ? Math.max(0, model.getRowCount() + rows.size() - rowLimit) : 0;
+        //先添加再删除，添加失败时不会丢失原有的行
+        if(model instanceof ColumnTableModel){
+            ColumnTableModel columnModel = (ColumnTableModel) model;
+            columnModel.addRows(rows);
+            if(overflow > 0) columnModel.removeFirstRows(overflow);
+        }else if(model instanceof DefaultTableModel){
+            this.appendRows((DefaultTableModel) model, rows, overflow);
+        }else {
+            return;
+        }
+        if(autoScroll){
+            int last = getRowCount() - 1;
+            if(last >= 0) this.scrollRectToVisible(this.getCellRect(last, 0, true));
+        }
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private void appendRows(DefaultTableModel model, List<Object[]> rows, int overflow){
+        Vector<Vector> data = model.getDataVector();
+        int first = data.size();
+        for (Object[] values : rows) data.add(new Vector<>(Arrays.asList(values)));
+        model.fireTableRowsInserted(first, data.size() - 1);
+        if(overflow > 0){
+            data.subList(0, overflow).clear();
+            model.fireTableRowsDeleted(0, overflow - 1);
+        }
+    }
+
     public static class TableColorConfig {
         public Color selectColor;
         public Color selectFontColor;
@@ -106,6 +577,10 @@ public class DTable extends JTable implements ColorSwitch, LanguageSwitch {
             this.backgroundColor = backgroundColor;
             this.titleColor = titleColor;
         }
+
+        private TableColorConfig(TableColorConfig config){
+            this(config.selectColor, config.selectFontColor, config.gridColor, config.fontColor, config.backgroundColor, config.titleColor);
+        }
     }
 
     private class DTableCellRender extends DefaultTableCellRenderer{
@@ -113,7 +588,7 @@ public class DTable extends JTable implements ColorSwitch, LanguageSwitch {
         @Override
         public Component getTableCellRendererComponent(JTable table, Object value, boolean isSelected, boolean hasFocus, int row, int column) {
             JLabel l = (JLabel) super.getTableCellRendererComponent(table, value, isSelected, hasFocus, row, column);
-            l.setText(i18n.format(value.toString(), language));
+            l.setText(translate(value));
             return l;
         }
     }
@@ -2,6 +2,7 @@ package dandelion.ui.component;
 
 import dandelion.ui.color.ColorConfig;
 import dandelion.ui.color.ColorSwitch;
+import dandelion.ui.color.Palette;
 import dandelion.ui.lang.LanguageSwitch;
 import dandelion.ui.lang.i18n;
 
@@ -11,11 +12,7 @@ import javax.swing.plaf.basic.BasicTextAreaUI;
 import java.awt.*;
 import java.awt.event.KeyAdapter;
 import java.awt.event.KeyEvent;
-import java.awt.font.FontRenderContext;
-import java.awt.geom.AffineTransform;
 import java.awt.geom.Rectangle2D;
-import java.util.HashMap;
-import java.util.Map;
 
 /**
  * 重新设计的文本域组件，自动换行，支持文本字数限制、提示文本和
@@ -29,7 +26,12 @@ public class DTextArea extends JTextArea implements RoundBorder, ColorSwitch, La
     private String language = i18n.getDefaultLanguage();
     private int arc = 10;
     private static Font defaultFont = new Font("", Font.PLAIN, 13);
-    private final Map<String, TextAreaColorConfig> colorConfigMap = new HashMap<>();
+    private static final Palette<TextAreaColorConfig> DEFAULT_PALETTE = Palette.<TextAreaColorConfig>empty()
+            .with(ColorSwitch.LIGHT, new TextAreaColorConfig(Color.black, Color.white, Color.lightGray,
+                    Color.lightGray, new Color(219, 219, 219)))
+            .with(ColorSwitch.DARK, new TextAreaColorConfig(Color.white, new Color(42, 42, 42),
+                    Color.gray, Color.gray, new Color(118, 118, 118)));
+    private Palette<TextAreaColorConfig> palette = DEFAULT_PALETTE;
     private Color borderColor, hintColor, disabledColor;
 
     /**
@@ -74,13 +76,7 @@ public class DTextArea extends JTextArea implements RoundBorder, ColorSwitch, La
         this.setLineWrap(true);
         this.setWrapStyleWord(true);
 
-        TextAreaColorConfig def =
-                new TextAreaColorConfig(Color.black, Color.white, Color.lightGray,
-                        Color.lightGray, new Color(219, 219, 219));
-        this.registerColorConfig(ColorSwitch.LIGHT, def);
-        this.registerColorConfig(ColorSwitch.DARK,
-                new TextAreaColorConfig(Color.white, new Color(42, 42, 42),
-                        Color.gray, Color.gray, new Color(118, 118, 118)));
+        TextAreaColorConfig def = DEFAULT_PALETTE.get(ColorSwitch.LIGHT);
         this.resetColor(def);
     }
 
@@ -118,7 +114,7 @@ public class DTextArea extends JTextArea implements RoundBorder, ColorSwitch, La
 
     @Override
     public void switchColor(ColorConfig config) {
-        TextAreaColorConfig areaColorConfig = colorConfigMap.get(config.getName());
+        TextAreaColorConfig areaColorConfig = palette.get(config);
         if(areaColorConfig == null)
             throw new UnsupportedOperationException("未发现此配色方案的配置文件，请先为此实例注册配置文件！");
         this.resetColor(areaColorConfig);
@@ -135,15 +131,20 @@ public class DTextArea extends JTextArea implements RoundBorder, ColorSwitch, La
     }
 
     public TextAreaColorConfig getColorConfig(ColorConfig config){
-        return colorConfigMap.get(config.getName());
+        TextAreaColorConfig colorConfig = palette.get(config);
+        if(colorConfig != null && colorConfig == DEFAULT_PALETTE.get(config)){
+            colorConfig = new TextAreaColorConfig(colorConfig);
+            this.palette = palette.with(config, colorConfig);
+        }
+        return colorConfig;
     }
 
     private Rectangle2D getTextBounds(String text){
-        return this.getFont().getStringBounds(text, new FontRenderContext(new AffineTransform(), true, true));
+        return TextMetrics.getStringBounds(getFont(), text);
     }
 
     public void registerColorConfig(ColorConfig config, TextAreaColorConfig areaColorConfig){
-        this.colorConfigMap.put(config.getName(), areaColorConfig);
+        this.palette = palette.with(config, areaColorConfig);
     }
 
     public static class TextAreaColorConfig{
@@ -160,6 +161,10 @@ public class DTextArea extends JTextArea implements RoundBorder, ColorSwitch, La
             this.hintColor = hintColor;
             this.disabledColor = disabledColor;
         }
+
+        private TextAreaColorConfig(TextAreaColorConfig config){
+            this(config.fontColor, config.backgroundColor, config.borderColor, config.hintColor, config.disabledColor);
+        }
     }
     private static class XAreaUI extends BasicTextAreaUI {
         @Override
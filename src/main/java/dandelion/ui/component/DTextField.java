@@ -2,6 +2,7 @@ package dandelion.ui.component;
 
 import dandelion.ui.color.ColorConfig;
 import dandelion.ui.color.ColorSwitch;
+import dandelion.ui.color.Palette;
 import dandelion.ui.lang.LanguageSwitch;
 import dandelion.ui.lang.i18n;
 
@@ -11,11 +12,7 @@ import javax.swing.plaf.basic.BasicTextFieldUI;
 import java.awt.*;
 import java.awt.event.KeyAdapter;
 import java.awt.event.KeyEvent;
-import java.awt.font.FontRenderContext;
-import java.awt.geom.AffineTransform;
 import java.awt.geom.Rectangle2D;
-import java.util.HashMap;
-import java.util.Map;
 
 /**
  * 重新设计的文本域，你可以直接设置它的最大输入数量，以及最常用
@@ -31,7 +28,12 @@ public class DTextField extends JTextField implements RoundBorder, ColorSwitch,
     private final DIcon icon;
     private static Font defaultFont = new Font("", Font.PLAIN, 13);
     private int arc = 10;
-    private final Map<String, TextFieldColorConfig> colorConfigMap = new HashMap<>();
+    private static final Palette<TextFieldColorConfig> DEFAULT_PALETTE = Palette.<TextFieldColorConfig>empty()
+            .with(ColorSwitch.LIGHT, new TextFieldColorConfig(Color.black, Color.white, Color.lightGray,
+                    Color.lightGray, new Color(219, 219, 219)))
+            .with(ColorSwitch.DARK, new TextFieldColorConfig(Color.white, new Color(42, 42, 42),
+                    Color.gray, Color.gray, new Color(118, 118, 118)));
+    private Palette<TextFieldColorConfig> palette = DEFAULT_PALETTE;
     private Color borderColor, hintColor, disabledColor;
 
     /**
@@ -90,13 +92,7 @@ public class DTextField extends JTextField implements RoundBorder, ColorSwitch,
         this.setBorder(new DFieldBorder());
         this.setOpaque(false);
 
-        TextFieldColorConfig def =
-                new TextFieldColorConfig(Color.black, Color.white, Color.lightGray,
-                        Color.lightGray, new Color(219, 219, 219));
-        this.registerColorConfig(ColorSwitch.LIGHT, def);
-        this.registerColorConfig(ColorSwitch.DARK,
-                new TextFieldColorConfig(Color.white, new Color(42, 42, 42),
-                        Color.gray, Color.gray, new Color(118, 118, 118)));
+        TextFieldColorConfig def = DEFAULT_PALETTE.get(ColorSwitch.LIGHT);
         this.resetColor(def);
     }
 
@@ -109,14 +105,8 @@ public class DTextField extends JTextField implements RoundBorder, ColorSwitch,
         int offset = icon == null ? 7 : iconSize + 10;
         Graphics2D g2d = (Graphics2D) g;
         g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-        g2d.setColor(borderColor);
-        g2d.fillRoundRect(0, 0, getWidth(), getHeight(), arc, arc);
-        if(this.isEnabled()){
-            g2d.setColor(getBackground());
-        }else {
-            g2d.setColor(disabledColor);
-        }
-        g2d.fillRoundRect(1, 1, getWidth()-2, getHeight()-2, arc, arc);
+        RoundRectCache.paint(g2d, 0, 0, getWidth(), getHeight(), arc, arc,
+                borderColor, this.isEnabled() ? getBackground() : disabledColor);
         if(icon != null){
             int y = (getHeight() - iconSize)/2;
             g2d.drawImage(icon.getImage(), 4, y, iconSize, iconSize, null);
@@ -142,12 +132,17 @@ public class DTextField extends JTextField implements RoundBorder, ColorSwitch,
     }
 
     public TextFieldColorConfig getColorConfig(ColorConfig config){
-        return colorConfigMap.get(config.getName());
+        TextFieldColorConfig colorConfig = palette.get(config);
+        if(colorConfig != null && colorConfig == DEFAULT_PALETTE.get(config)){
+            colorConfig = new TextFieldColorConfig(colorConfig);
+            this.palette = palette.with(config, colorConfig);
+        }
+        return colorConfig;
     }
 
     @Override
     public void switchColor(ColorConfig config) {
-        TextFieldColorConfig textFieldColorConfig = colorConfigMap.get(config.getName());
+        TextFieldColorConfig textFieldColorConfig = palette.get(config);
         if(textFieldColorConfig == null)
             throw new UnsupportedOperationException("未发现此配色方案的配置文件，请先为此实例注册配置文件！");
         this.resetColor(textFieldColorConfig);
@@ -165,11 +160,11 @@ public class DTextField extends JTextField implements RoundBorder, ColorSwitch,
     }
 
     private Rectangle2D getTextBounds(String text){
-        return this.getFont().getStringBounds(text, new FontRenderContext(new AffineTransform(), true, true));
+        return TextMetrics.getStringBounds(getFont(), text);
     }
 
     public void registerColorConfig(ColorConfig config, TextFieldColorConfig textFieldColorConfig){
-        this.colorConfigMap.put(config.getName(), textFieldColorConfig);
+        this.palette = palette.with(config, textFieldColorConfig);
     }
 
     public static class TextFieldColorConfig{
@@ -186,6 +181,10 @@ public class DTextField extends JTextField implements RoundBorder, ColorSwitch,
             this.hintColor = hintColor;
             this.disabledColor = disabledColor;
         }
+
+        private TextFieldColorConfig(TextFieldColorConfig config){
+            this(config.fontColor, config.backgroundColor, config.borderColor, config.hintColor, config.disabledColor);
+        }
     }
 
     private class DFieldBorder implements Border{
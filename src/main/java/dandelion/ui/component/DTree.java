@@ -2,6 +2,7 @@ package dandelion.ui.component;
 
 import dandelion.ui.color.ColorConfig;
 import dandelion.ui.color.ColorSwitch;
+import dandelion.ui.color.Palette;
 import dandelion.ui.lang.LanguageSwitch;
 import dandelion.ui.lang.i18n;
 
@@ -11,8 +12,6 @@ import javax.swing.plaf.basic.BasicTreeUI;
 import javax.swing.tree.DefaultTreeCellRenderer;
 import javax.swing.tree.TreeNode;
 import java.awt.*;
-import java.util.HashMap;
-import java.util.Map;
 
 /**
  * 进行了颜色调整和语言支持的JTree组件，在之后的版本还会深度
@@ -24,7 +23,12 @@ import java.util.Map;
 public class DTree extends JTree implements RoundBorder, ColorSwitch, LanguageSwitch {
 
     private int arc = 15;
-    private final Map<String, TreeColorConfig> colorConfigMap = new HashMap<>();
+    private static final Palette<TreeColorConfig> DEFAULT_PALETTE = Palette.<TreeColorConfig>empty()
+            .with(ColorSwitch.LIGHT, new TreeColorConfig(Color.black, Color.black, Color.white,
+                    new Color(25, 142, 238), Color.white))
+            .with(ColorSwitch.DARK, new TreeColorConfig(Color.white, Color.white, Color.white,
+                    new Color(34, 128, 201), new Color(61, 61, 61)));
+    private Palette<TreeColorConfig> palette = DEFAULT_PALETTE;
     private Color lineColor;
     private Color selectFontColor;
     private Color fontColor;
@@ -54,13 +58,7 @@ public class DTree extends JTree implements RoundBorder, ColorSwitch, LanguageSw
         DTreeCellRender render = new DTreeCellRender();
         this.setCellRenderer(render);
 
-        TreeColorConfig def =
-                new TreeColorConfig(Color.black, Color.black, Color.white,
-                        new Color(25, 142, 238), Color.white);
-        this.registerColorConfig(ColorSwitch.LIGHT, def);
-        this.registerColorConfig(ColorSwitch.DARK,
-                new TreeColorConfig(Color.white, Color.white, Color.white,
-                        new Color(34, 128, 201), new Color(61, 61, 61)));
+        TreeColorConfig def = DEFAULT_PALETTE.get(ColorSwitch.LIGHT);
         this.resetColor(def);
     }
 
@@ -71,7 +69,7 @@ public class DTree extends JTree implements RoundBorder, ColorSwitch, LanguageSw
 
     @Override
     public void switchColor(ColorConfig config) {
-        TreeColorConfig treeColorConfig = colorConfigMap.get(config.getName());
+        TreeColorConfig treeColorConfig = palette.get(config);
         if(treeColorConfig == null)
             throw new UnsupportedOperationException("未发现此配色方案的配置文件，请先为此实例注册配置文件！");
         this.resetColor(treeColorConfig);
@@ -83,11 +81,16 @@ public class DTree extends JTree implements RoundBorder, ColorSwitch, LanguageSw
     }
 
     public void registerColorConfig(ColorConfig config, TreeColorConfig treeColorConfig){
-        this.colorConfigMap.put(config.getName(), treeColorConfig);
+        this.palette = palette.with(config, treeColorConfig);
     }
 
     public TreeColorConfig getColorConfig(ColorConfig config){
-        return colorConfigMap.get(config.getName());
+        TreeColorConfig colorConfig = palette.get(config);
+        if(colorConfig != null && colorConfig == DEFAULT_PALETTE.get(config)){
+            colorConfig = new TreeColorConfig(colorConfig);
+            this.palette = palette.with(config, colorConfig);
+        }
+        return colorConfig;
     }
 
     public void resetColor(TreeColorConfig config){
@@ -112,6 +115,10 @@ public class DTree extends JTree implements RoundBorder, ColorSwitch, LanguageSw
             this.selectBackground = selectBackground;
             this.backgroundColor = backgroundColor;
         }
+
+        private TreeColorConfig(TreeColorConfig config){
+            this(config.lineColor, config.fontColor, config.selectFontColor, config.selectBackground, config.backgroundColor);
+        }
     }
 
     private class DTreeCellRender extends DefaultTreeCellRenderer{
@@ -0,0 +1,260 @@
+package dandelion.ui.component;
+
+import dandelion.ui.color.ColorConfig;
+import dandelion.ui.color.ColorSwitch;
+import dandelion.ui.color.Palette;
+import dandelion.ui.image.SvgPath;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 矢量图标，由路径描述图标的形状，在任何大小和屏幕缩放下都能清晰显示，
+ * 切换配色方案时只需要更换填充颜色，不需要为每个主题准备单独的图片。
+ *
+ * <p>
+ * 图标按 (形状, 像素大小, 颜色) 光栅化一次，结果保存在所有矢量图标共用的
+ * 缓存中，之后的绘制只需要一次拷贝。缓存超过内存预算时淘汰最久未使用的图像。
+ * 组件被禁用时，图标使用当前颜色的半透明版本绘制。
+ *
+ * @author Ketuer
+ * @since 1.2
+ */
+public class DVectorIcon implements Icon, ColorSwitch {
+    private static final Map<Key, BufferedImage> cache = new LinkedHashMap<>(16, 0.75f, true);
+    private static long memoryBudget = 4L * 1024 * 1024;
+    private static long memoryUsage = 0;
+
+    //禁用状态下颜色的不透明度
+    private static final int DISABLED_ALPHA = 96;
+
+    private static final Palette<Color> DEFAULT_PALETTE = Palette.<Color>empty()
+            .with(ColorSwitch.LIGHT, new Color(60, 60, 60))
+            .with(ColorSwitch.DARK, new Color(210, 210, 210));
+    private Palette<Color> palette = DEFAULT_PALETTE;
+
+    private final Object source;
+    private final Shape shape;
+    private final float viewWidth, viewHeight;
+    private final int width, height;
+    private Color color = DEFAULT_PALETTE.get(ColorSwitch.LIGHT);
+    private Color disabledColor = disabled(color);
+
+    /**
+     * 使用SVG路径数据创建图标
+     * @param path 路径数据，支持的命令见 {@link SvgPath}
+     * @param viewWidth 路径坐标系的宽度，对应SVG的viewBox
+     * @param viewHeight 路径坐标系的高度
+     * @param width 图标宽度
+     * @param height 图标高度
+     */
+    public DVectorIcon(String path, float viewWidth, float viewHeight, int width, int height){
+        this(path, SvgPath.parse(path), viewWidth, viewHeight, width, height);
+    }
+
+    /**
+     * 使用任意形状创建图标
+     * @param shape 形状，创建后请不要再修改
+     * @param viewWidth 形状坐标系的宽度
+     * @param viewHeight 形状坐标系的高度
+     * @param width 图标宽度
+     * @param height 图标高度
+     */
+    public DVectorIcon(Shape shape, float viewWidth, float viewHeight, int width, int height){
+        this(shape, shape, viewWidth, viewHeight, width, height);
+    }
+
+    private DVectorIcon(Object source, Shape shape, float viewWidth, float viewHeight, int width, int height){
+        if(viewWidth <= 0 || viewHeight <= 0) throw new IllegalArgumentException("坐标系大小必须大于0！");
+        this.source = source;
+        this.shape = shape;
+        this.viewWidth = viewWidth;
+        this.viewHeight = viewHeight;
+        this.width = width;
+        this.height = height;
+    }
+
+    public void registerColorConfig(ColorConfig config, Color color){
+        this.palette = palette.with(config, color);
+    }
+
+    public Color getColorConfig(ColorConfig config){
+        return palette.get(config);
+    }
+
+    /**
+     * 在没有对应的已注册的颜色配置时，保持当前颜色。
+     * @param config 颜色配置
+     */
+    @Override
+    public void switchColor(ColorConfig config) {
+        Color color = palette.get(config);
+        if(color != null){
+            this.color = color;
+            this.disabledColor = disabled(color);
+        }
+    }
+
+    private static Color disabled(Color color){
+        return new Color(color.getRed(), color.getGreen(), color.getBlue(), color.getAlpha() * DISABLED_ALPHA / 255);
+    }
+
+    public Color getColor() {
+        return color;
+    }
+
+    @Override
+    public void paintIcon(Component c, Graphics g, int x, int y) {
+        this.paint((Graphics2D) g, x, y, width, height, c == null || c.isEnabled());
+    }
+
+    /**
+     * 以指定大小绘制图标，按照画笔的设备缩放光栅化
+     * @param enabled 为false时使用禁用状态的颜色
+     */
+    void paint(Graphics2D g, int x, int y, int width, int height, boolean enabled){
+        if(width <= 0 || height <= 0) return;
+        Color color = enabled ? this.color : disabledColor;
+        double scale = g.getTransform().getScaleX();
+        if(scale <= 0) scale = 1;
+        int pixelWidth = (int) Math.ceil(width * scale), pixelHeight = (int) Math.ceil(height * scale);
+        BufferedImage image = this.getRaster(pixelWidth, pixelHeight, color);
+        if(image != null){
+            g.drawImage(image, x, y, width, height, null);
+        }else {
+            Graphics2D g2d = (Graphics2D) g.create();
+            try {
+                g2d.translate(x, y);
+                g2d.scale(width / viewWidth, height / viewHeight);
+                render(g2d, shape, color);
+            }finally {
+                g2d.dispose();
+            }
+        }
+    }
+
+    private BufferedImage getRaster(int pixelWidth, int pixelHeight, Color color){
+        Key key = new Key(source, viewWidth, viewHeight, pixelWidth, pixelHeight, color.getRGB());
+        long bytes = (long) pixelWidth * pixelHeight * 4;
+        synchronized (DVectorIcon.class){
+            BufferedImage image = cache.get(key);
+            if(image != null) return image;
+            if(bytes > memoryBudget) return null;
+        }
+        BufferedImage image = new BufferedImage(pixelWidth, pixelHeight, BufferedImage.TYPE_INT_ARGB_PRE);
+        Graphics2D g2d = image.createGraphics();
+        try {
+            g2d.scale(pixelWidth / viewWidth, pixelHeight / viewHeight);
+            render(g2d, shape, color);
+        }finally {
+            g2d.dispose();
+        }
+        synchronized (DVectorIcon.class){
+            BufferedImage previous = cache.put(key, image);
+            if(previous != null) memoryUsage -= (long) previous.getWidth() * previous.getHeight() * 4;
+            memoryUsage += bytes;
+            trim();
+        }
+        return image;
+    }
+
+    private static void render(Graphics2D g2d, Shape shape, Color color){
+        g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        g2d.setRenderingHint(RenderingHints.KEY_STROKE_CONTROL, RenderingHints.VALUE_STROKE_PURE);
+        g2d.setColor(color);
+        g2d.fill(shape);
+    }
+
+    /**
+     * 设置所有矢量图标共用的光栅缓存的内存预算，默认为4MB
+     * @param bytes 字节数
+     */
+    public static synchronized void setMemoryBudget(long bytes){
+        if(bytes < 0) throw new IllegalArgumentException("内存预算不能为负数！");
+        memoryBudget = bytes;
+        trim();
+    }
+
+    public static synchronized long getMemoryBudget(){
+        return memoryBudget;
+    }
+
+    /**
+     * 获取光栅缓存当前占用的内存
+     * @return 字节数
+     */
+    public static synchronized long getMemoryUsage(){
+        return memoryUsage;
+    }
+
+    /**
+     * 清空光栅缓存
+     */
+    public static synchronized void clear(){
+        cache.clear();
+        memoryUsage = 0;
+    }
+
+    private static void trim(){
+        Iterator<BufferedImage> iterator = cache.values().iterator();
+        while (memoryUsage > memoryBudget && iterator.hasNext()){
+            BufferedImage image = iterator.next();
+            memoryUsage -= (long) image.getWidth() * image.getHeight() * 4;
+            iterator.remove();
+        }
+    }
+
+    @Override
+    public int getIconWidth() {
+        return width;
+    }
+
+    @Override
+    public int getIconHeight() {
+        return height;
+    }
+
+    /**
+     * 路径数据相同的图标共用缓存，直接传入形状的图标按形状实例区分
+     */
+    private static final class Key{
+        private final Object source;
+        private final float viewWidth, viewHeight;
+        private final int width, height;
+        private final int color;
+
+        private Key(Object source, float viewWidth, float viewHeight, int width, int height, int color){
+            this.source = source;
+            this.viewWidth = viewWidth;
+            this.viewHeight = viewHeight;
+            this.width = width;
+            this.height = height;
+            this.color = color;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key key = (Key) o;
+            return source.equals(key.source) && Float.compare(viewWidth, key.viewWidth) == 0
+                    && Float.compare(viewHeight, key.viewHeight) == 0 && width == key.width
+                    && height == key.height && color == key.color;
+        }
+
+        @Override
+        public int hashCode() {
+            int result = source.hashCode();
+            result = 31 * result + Float.hashCode(viewWidth);
+            result = 31 * result + Float.hashCode(viewHeight);
+            result = 31 * result + width;
+            result = 31 * result + height;
+            result = 31 * result + color;
+            return result;
+        }
+    }
+}
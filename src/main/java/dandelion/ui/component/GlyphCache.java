@@ -0,0 +1,81 @@
+package dandelion.ui.component;
+
+import java.awt.*;
+import java.awt.font.FontRenderContext;
+import java.awt.font.GlyphVector;
+import java.text.Bidi;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 组件文字的字形缓存，保存已经排版好的GlyphVector，绘制时直接使用
+ * drawGlyphVector，不再每次重新排版。字体或者FontRenderContext变化时
+ * 缓存会整体失效，文字变化时只会重新排版新的文字。需要双向排版的文字，
+ * 以及带有下划线、删除线、字距调整等布局属性的字体不会被缓存，仍然使用
+ * drawString绘制，因为drawGlyphVector不会绘制这些效果。
+ *
+ * 缓存只应该在事件分发线程中使用。
+ *
+ * @author Ketuer
+ * @since 1.2
+ */
+final class GlyphCache {
+    private final Map<String, GlyphVector> glyphs;
+    private Font font;
+    private FontRenderContext context;
+
+    /**
+     * @param capacity 最多缓存的文字数量，超出时淘汰最久未使用的文字
+     */
+    GlyphCache(int capacity){
+        this.glyphs = new LinkedHashMap<String, GlyphVector>(16, 0.75f, true){
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, GlyphVector> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * 使用画笔当前的字体和颜色绘制文字
+     * @param g 画笔
+     * @param text 文字
+     * @param x x坐标
+     * @param y 基线的y坐标
+     */
+    void draw(Graphics2D g, String text, float x, float y){
+        if(text == null || text.isEmpty()) return;
+        if(g.getFont().hasLayoutAttributes()){
+            g.drawString(text, x, y);
+            return;
+        }
+        GlyphVector vector = this.get(g.getFont(), g.getFontRenderContext(), text);
+        if(vector == null){
+            char[] chars = text.toCharArray();
+            if(Bidi.requiresBidi(chars, 0, chars.length)){
+                g.drawString(text, x, y);
+                return;
+            }
+            vector = font.layoutGlyphVector(context, chars, 0, chars.length, Font.LAYOUT_LEFT_TO_RIGHT);
+            glyphs.put(text, vector);
+        }
+        g.drawGlyphVector(vector, x, y);
+    }
+
+    /**
+     * 清空缓存，在语言切换等所有文字都会变化时调用
+     */
+    void invalidate(){
+        glyphs.clear();
+    }
+
+    private GlyphVector get(Font font, FontRenderContext context, String text){
+        if(!font.equals(this.font) || !context.equals(this.context)){
+            glyphs.clear();
+            this.font = font;
+            this.context = context;
+            return null;
+        }
+        return glyphs.get(text);
+    }
+}
@@ -0,0 +1,187 @@
+package dandelion.ui.component;
+
+import javax.swing.*;
+import javax.swing.table.DefaultTableCellRenderer;
+import java.awt.*;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Map;
+
+/**
+ * 数字单元格渲染器，数字直接格式化到可重复使用的字符数组中并绘制，
+ * 不会为每个单元格创建字符串。整数按原样显示，小数按固定的小数位数
+ * 四舍五入显示，可以选择是否按千位分组。
+ *
+ * <p>
+ * DTable使用 {@link ColumnTableModel} 时，会直接把基本类型的值交给
+ * 此渲染器，连装箱也不会发生。
+ *
+ * @author Ketuer
+ * @since 1.2
+ */
+public class NumberCellRenderer extends DefaultTableCellRenderer {
+    private static final long[] POWERS = {1, 10, 100, 1000, 10000, 100000, 1000000, 10000000, 100000000, 1000000000};
+    //放大到整数后超过这个范围的小数无法精确四舍五入，改用BigDecimal
+    private static final double MAX_EXACT = 0x1p53;
+
+    private final int fractionDigits;
+    private final boolean grouping;
+    private final char[] buffer = new char[40];
+    private int start = buffer.length;
+    private Font metricsFont;
+    private FontMetrics metrics;
+
+    /**
+     * 创建整数渲染器
+     */
+    public NumberCellRenderer(){
+        this(0, false);
+    }
+
+    /**
+     * 创建数字渲染器
+     * @param fractionDigits 小数位数，0到9之间
+     * @param grouping 是否按千位分组
+     */
+    public NumberCellRenderer(int fractionDigits, boolean grouping){
+        if(fractionDigits < 0 || fractionDigits >= POWERS.length) throw new IllegalArgumentException("小数位数必须在0到9之间！");
+        this.fractionDigits = fractionDigits;
+        this.grouping = grouping;
+        this.setHorizontalAlignment(JLabel.RIGHT);
+    }
+
+    public int getFractionDigits() {
+        return fractionDigits;
+    }
+
+    public boolean isGrouping() {
+        return grouping;
+    }
+
+    @Override
+    protected void setValue(Object value) {
+        if(value instanceof Double || value instanceof Float){
+            this.setNumber(((Number) value).doubleValue());
+        }else if(value instanceof Number){
+            this.setNumber(((Number) value).longValue());
+        }else {
+            start = buffer.length;
+            if(value != null) this.append(value.toString());
+        }
+    }
+
+    /**
+     * 设置要显示的整数
+     * @param value 数字
+     */
+    public void setNumber(long value){
+        start = buffer.length;
+        if(fractionDigits > 0){
+            for (int i = 0; i < fractionDigits; i++) buffer[--start] = '0';
+            buffer[--start] = '.';
+        }
+        this.appendInteger(value, false);
+    }
+
+    /**
+     * 设置要显示的小数，按小数位数四舍五入
+     * @param value 数字
+     */
+    public void setNumber(double value){
+        start = buffer.length;
+        if(Double.isNaN(value) || Double.isInfinite(value)){
+            this.append(Double.toString(value));
+            return;
+        }
+        if(Math.abs(value) * POWERS[fractionDigits] >= MAX_EXACT){
+            this.appendDecimal(BigDecimal.valueOf(value).setScale(fractionDigits, RoundingMode.HALF_UP).toPlainString(), value);
+            return;
+        }
+        boolean negative = value < 0;
+        long scaled = Math.round(Math.abs(value) * POWERS[fractionDigits]);
+        if(fractionDigits > 0){
+            long fraction = scaled % POWERS[fractionDigits];
+            for (int i = 0; i < fractionDigits; i++){
+                buffer[--start] = (char) ('0' + fraction % 10);
+                fraction /= 10;
+            }
+            buffer[--start] = '.';
+        }
+        this.appendInteger(scaled / POWERS[fractionDigits], negative && scaled != 0);
+    }
+
+    /**
+     * 从后向前写入整数部分
+     */
+    private void appendInteger(long value, boolean negative){
+        if(value < 0) negative = true;
+        //按负数计算每一位，Long.MIN_VALUE取反会溢出
+        if(value > 0) value = -value;
+        int digits = 0;
+        do {
+            if(grouping && digits > 0 && digits % 3 == 0) buffer[--start] = ',';
+            buffer[--start] = (char) ('0' - value % 10);
+            value /= 10;
+            digits++;
+        } while (value != 0);
+        if(negative) buffer[--start] = '-';
+    }
+
+    /**
+     * 写入BigDecimal格式化后的数字，整数部分按需要分组，只用于很大的数字，
+     * 放不下时使用Double.toString的科学计数法
+     */
+    private void appendDecimal(String text, double value){
+        int point = text.indexOf('.');
+        int end = point < 0 ? text.length() : point;
+        int integerDigits = text.charAt(0) == '-' ? end - 1 : end;
+        if(text.length() + (grouping ? (integerDigits - 1) / 3 : 0) > buffer.length){
+            this.append(Double.toString(value));
+            return;
+        }
+        for (int i = text.length() - 1; i >= end; i--) buffer[--start] = text.charAt(i);
+        boolean negative = text.charAt(0) == '-';
+        int digits = 0;
+        for (int i = end - 1; i >= (negative ? 1 : 0); i--, digits++){
+            if(grouping && digits > 0 && digits % 3 == 0) buffer[--start] = ',';
+            buffer[--start] = text.charAt(i);
+        }
+        if(negative) buffer[--start] = '-';
+    }
+
+    private void append(String text){
+        int length = Math.min(text.length(), buffer.length);
+        start = buffer.length - length;
+        text.getChars(0, length, buffer, start);
+    }
+
+    /**
+     * 获取当前显示的文本，只在需要时创建字符串
+     * @return 文本
+     */
+    public String getNumberText() {
+        return new String(buffer, start, buffer.length - start);
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        super.paintComponent(g);
+        int length = buffer.length - start;
+        if(length == 0) return;
+        Font font = getFont();
+        if(font != metricsFont){
+            metricsFont = font;
+            metrics = this.getFontMetrics(font);
+        }
+        Insets insets = getInsets();
+        int width = metrics.charsWidth(buffer, start, length);
+        int x = getHorizontalAlignment() == JLabel.LEFT || getHorizontalAlignment() == JLabel.LEADING
+                ? insets.left : getWidth() - insets.right - width;
+        int y = insets.top + (getHeight() - insets.top - insets.bottom - metrics.getHeight()) / 2 + metrics.getAscent();
+        Graphics2D g2d = (Graphics2D) g;
+        Object hints = Toolkit.getDefaultToolkit().getDesktopProperty("awt.font.desktophints");
+        if(hints instanceof Map) g2d.addRenderingHints((Map<?, ?>) hints);
+        g2d.setColor(getForeground());
+        g2d.drawChars(buffer, start, length, x, y);
+    }
+}
@@ -0,0 +1,540 @@
+package dandelion.ui.component;
+
+import javax.swing.*;
+import javax.swing.table.TableModel;
+import java.util.*;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntPredicate;
+import java.util.stream.IntStream;
+
+/**
+ * 在后台并行计算的表格排序器。排序和筛选都在fork/join线程池中完成，结果是
+ * 一个int数组形式的行号映射，计算完成后在EDT中一次性替换，计算期间表格
+ * 继续显示原来的顺序，不会阻塞用户操作。
+ *
+ * <p>
+ * 后台线程不会读取正在EDT中修改的数据模型：使用 {@link ColumnTableModel} 时，
+ * 计算开始前在EDT中创建数据的快照，排序直接比较快照中基本类型的列数据，字符串列
+ * 按预先计算的字典序号比较，不会产生装箱；其他数据模型会在EDT中先把排序用到的
+ * 列复制到数组中。
+ *
+ * <p>
+ * 筛选条件以数据模型中的行号为参数，会在多个线程中同时调用。使用ColumnTableModel
+ * 时，筛选条件中通过这个数据模型读取的数据都来自快照；使用其他数据模型时，筛选
+ * 条件需要自己保证线程安全。筛选条件抛出异常时保留原来的结果，异常在EDT中抛出，
+ * 在数据或者条件变化之前不会重新计算。
+ *
+ * <p>
+ * 数据模型变化时会先同步调整当前的映射（新增的行追加在末尾，删除的行被移除），
+ * 再在后台重新排序。
+ *
+ * @author Ketuer
+ * @since 1.2
+ */
+public class ParallelRowSorter extends RowSorter<TableModel> {
+    private static final int MAX_SORT_KEYS = 3;
+    private static final int SEQUENTIAL_THRESHOLD = 8192;
+    private static final int RADIX_BITS = 11;
+    private static final int RADIX = 1 << RADIX_BITS;
+    private static final int RADIX_MASK = RADIX - 1;
+
+    private final TableModel model;
+    private List<SortKey> sortKeys = Collections.emptyList();
+    private IntPredicate filter;
+    private int[] viewToModel;
+    private int[] modelToView;
+
+    private boolean requested = false;
+    private boolean running = false;
+    private boolean dirty = false;
+    //计算期间从头部删除的行数，其他位置的删除或者结构变化会使结果失效
+    private int headShift = 0;
+    private boolean invalid = false;
+
+    public ParallelRowSorter(TableModel model){
+        this.model = model;
+    }
+
+    @Override
+    public TableModel getModel() {
+        return model;
+    }
+
+    /**
+     * 点击表头时调用，切换这一列的排序方向并作为第一排序条件，最多保留3个排序条件
+     * @param column 列
+     */
+    @Override
+    public void toggleSortOrder(int column) {
+        List<SortKey> keys = new ArrayList<>(sortKeys);
+        SortOrder order = SortOrder.ASCENDING;
+        for (int i = 0; i < keys.size(); i++){
+            if(keys.get(i).getColumn() == column){
+                if(i == 0 && keys.get(i).getSortOrder() == SortOrder.ASCENDING) order = SortOrder.DESCENDING;
+                keys.remove(i);
+                break;
+            }
+        }
+        keys.add(0, new SortKey(column, order));
+        if(keys.size() > MAX_SORT_KEYS) keys = keys.subList(0, MAX_SORT_KEYS);
+        this.setSortKeys(keys);
+    }
+
+    @Override
+    public void setSortKeys(List<? extends SortKey> keys) {
+        List<SortKey> old = sortKeys;
+        sortKeys = keys == null ? Collections.emptyList() : Collections.unmodifiableList(new ArrayList<>(keys));
+        if(old.equals(sortKeys)) return;
+        this.fireSortOrderChanged();
+        this.schedule();
+    }
+
+    @Override
+    public List<? extends SortKey> getSortKeys() {
+        return sortKeys;
+    }
+
+    /**
+     * 设置筛选条件，参数为数据模型中的行号，返回false的行不会显示
+     * @param filter 筛选条件，为null时显示所有行
+     */
+    public void setFilter(IntPredicate filter) {
+        this.filter = filter;
+        this.schedule();
+    }
+
+    public IntPredicate getFilter() {
+        return filter;
+    }
+
+    /**
+     * 是否有正在后台进行的排序或者筛选
+     * @return 正在计算时为true
+     */
+    public boolean isSorting() {
+        return requested || running;
+    }
+
+    @Override
+    public int convertRowIndexToModel(int index) {
+        int[] mapping = viewToModel;
+        if(mapping == null) return index;
+        if(index < 0 || index >= mapping.length) throw new IndexOutOfBoundsException("行号超出范围："+index);
+        return mapping[index];
+    }
+
+    @Override
+    public int convertRowIndexToView(int index) {
+        int[] mapping = modelToView;
+        if(mapping == null) return index;
+        if(index < 0 || index >= model.getRowCount()) throw new IndexOutOfBoundsException("行号超出范围："+index);
+        return index < mapping.length ? mapping[index] : -1;
+    }
+
+    @Override
+    public int getViewRowCount() {
+        return viewToModel == null ? model.getRowCount() : viewToModel.length;
+    }
+
+    @Override
+    public int getModelRowCount() {
+        return model.getRowCount();
+    }
+
+    @Override
+    public void modelStructureChanged() {
+        for (SortKey key : sortKeys){
+            if(key.getColumn() >= model.getColumnCount()){
+                sortKeys = Collections.emptyList();
+                this.fireSortOrderChanged();
+                break;
+            }
+        }
+        this.allRowsChanged();
+    }
+
+    @Override
+    public void allRowsChanged() {
+        invalid = true;
+        int[] previous = viewToModel;
+        this.setMapping(null);
+        if(previous != null) this.fireRowSorterChanged(previous);
+        this.schedule();
+    }
+
+    @Override
+    public void rowsInserted(int firstRow, int endRow) {
+        if(viewToModel != null){
+            int[] previous = viewToModel;
+            if(endRow == model.getRowCount() - 1){
+                //追加在末尾的行先按筛选条件放在视图末尾
+                this.setMapping(this.appendTail(previous, firstRow));
+            }else {
+                invalid = true;
+                this.setMapping(null);
+            }
+            this.fireRowSorterChanged(previous);
+        }
+        this.schedule();
+    }
+
+    @Override
+    public void rowsDeleted(int firstRow, int endRow) {
+        int count = endRow - firstRow + 1;
+        if(firstRow == 0){
+            headShift += count;
+        }else {
+            invalid = true;
+        }
+        if(viewToModel != null){
+            int[] previous = viewToModel;
+            this.setMapping(removeRange(previous, firstRow, endRow));
+            this.fireRowSorterChanged(previous);
+        }
+        this.schedule();
+    }
+
+    @Override
+    public void rowsUpdated(int firstRow, int endRow) {
+        this.schedule();
+    }
+
+    @Override
+    public void rowsUpdated(int firstRow, int endRow, int column) {
+        this.schedule();
+    }
+
+    private int[] appendTail(int[] mapping, int firstRow){
+        IntPredicate filter = this.filter;
+        int rows = model.getRowCount();
+        int[] tail = IntStream.range(firstRow, rows).filter(row -> filter == null || filter.test(row)).toArray();
+        int[] result = Arrays.copyOf(mapping, mapping.length + tail.length);
+        System.arraycopy(tail, 0, result, mapping.length, tail.length);
+        return result;
+    }
+
+    /**
+     * 移除映射中被删除的行，后面的行号向前移动
+     */
+    private static int[] removeRange(int[] mapping, int firstRow, int endRow){
+        int count = endRow - firstRow + 1;
+        int[] result = new int[mapping.length];
+        int size = 0;
+        for (int row : mapping){
+            if(row < firstRow) result[size++] = row;
+            else if(row > endRow) result[size++] = row - count;
+        }
+        return Arrays.copyOf(result, size);
+    }
+
+    private void setMapping(int[] viewToModel){
+        this.viewToModel = viewToModel;
+        if(viewToModel == null){
+            modelToView = null;
+            return;
+        }
+        int[] modelToView = new int[model.getRowCount()];
+        Arrays.fill(modelToView, -1);
+        for (int i = 0; i < viewToModel.length; i++) modelToView[viewToModel[i]] = i;
+        this.modelToView = modelToView;
+    }
+
+    /**
+     * 安排一次后台计算，同一个事件中的多次修改（例如同时设置排序条件和筛选条件）
+     * 只会计算一次
+     */
+    private void schedule(){
+        if(requested) return;
+        requested = true;
+        SwingUtilities.invokeLater(this::start);
+    }
+
+    /**
+     * 开始后台计算，正在计算时只做标记，当前计算完成后再重新计算
+     */
+    private void start(){
+        requested = false;
+        if(running){
+            dirty = true;
+            return;
+        }
+        if(sortKeys.isEmpty() && filter == null){
+            invalid = false;
+            headShift = 0;
+            if(viewToModel != null){
+                int[] previous = viewToModel;
+                this.setMapping(null);
+                this.fireRowSorterChanged(previous);
+            }
+            return;
+        }
+        running = true;
+        dirty = false;
+        invalid = false;
+        headShift = 0;
+        List<SortKey> keys = this.sortKeys;
+        IntPredicate filter = this.filter;
+        int rows = model.getRowCount();
+        //在EDT中准备后台计算需要的数据，后台线程不读取数据模型
+        ColumnTableModel snapshot = model instanceof ColumnTableModel ? ((ColumnTableModel) model).snapshot() : null;
+        Object[][] values = snapshot == null ? this.copyColumns(keys, rows) : null;
+        CompletableFuture.supplyAsync(() -> this.compute(keys, filter, rows, snapshot, values), ForkJoinPool.commonPool())
+                .whenComplete((result, throwable) -> SwingUtilities.invokeLater(() -> this.apply(result, throwable, keys, filter, rows)));
+    }
+
+    private void apply(int[] result, Throwable throwable, List<SortKey> keys, IntPredicate filter, int rows){
+        running = false;
+        boolean stale = invalid || keys != sortKeys || filter != this.filter;
+        if(throwable != null){
+            if(stale || dirty){
+                this.schedule();
+                return;
+            }
+            //数据和条件都没有变化时重新计算仍然会失败，保留当前的结果，
+            //等到数据或者条件变化时再重新计算
+            headShift = 0;
+            Throwable cause = throwable instanceof CompletionException && throwable.getCause() != null ? throwable.getCause() : throwable;
+            if(cause instanceof RuntimeException) throw (RuntimeException) cause;
+            if(cause instanceof Error) throw (Error) cause;
+            throw new IllegalStateException("排序失败！", cause);
+        }
+        if(!invalid){
+            if(headShift > 0) result = removeRange(result, 0, headShift - 1);
+            if(rows - headShift < model.getRowCount()) result = this.appendTail(result, rows - headShift);
+            int[] previous = viewToModel;
+            this.setMapping(result);
+            this.fireRowSorterChanged(previous);
+        }
+        if(stale || dirty) this.schedule();
+        else headShift = 0;
+    }
+
+    /**
+     * 在EDT中复制排序用到的列
+     */
+    private Object[][] copyColumns(List<SortKey> keys, int rows){
+        Object[][] values = new Object[model.getColumnCount()][];
+        for (SortKey key : keys){
+            int column = key.getColumn();
+            if(key.getSortOrder() == SortOrder.UNSORTED || values[column] != null) continue;
+            Object[] data = new Object[rows];
+            for (int row = 0; row < rows; row++) data[row] = model.getValueAt(row, column);
+            values[column] = data;
+        }
+        return values;
+    }
+
+    /**
+     * 后台线程中计算排序和筛选的结果
+     * @param snapshot ColumnTableModel的快照，其他数据模型为null
+     * @param values 其他数据模型中排序用到的列
+     */
+    private int[] compute(List<SortKey> keys, IntPredicate filter, int rows, ColumnTableModel snapshot, Object[][] values){
+        int[] indices = applyFilter(filter, rows, snapshot);
+        if(snapshot != null) return radixSort(snapshot, indices, keys, rows);
+        List<RowComparator> comparators = new ArrayList<>();
+        for (SortKey key : keys){
+            if(key.getSortOrder() == SortOrder.UNSORTED || rows == 0) continue;
+            Object[] column = values[key.getColumn()];
+            RowComparator comparator = (a, b) -> compareValues(column[a], column[b]);
+            comparators.add(key.getSortOrder() == SortOrder.DESCENDING ? (a, b) -> comparator.compare(b, a) : comparator);
+        }
+        if(comparators.isEmpty()) return indices;
+        RowComparator comparator = comparators.size() == 1 ? comparators.get(0) : (a, b) -> {
+            for (RowComparator c : comparators){
+                int result = c.compare(a, b);
+                if(result != 0) return result;
+            }
+            return 0;
+        };
+        ForkJoinPool.commonPool().invoke(new SortTask(indices, new int[indices.length], 0, indices.length, comparator));
+        return indices;
+    }
+
+    /**
+     * 并行筛选，使用快照时每个分块在读取快照的状态下调用筛选条件
+     */
+    private static int[] applyFilter(IntPredicate filter, int rows, ColumnTableModel snapshot){
+        if(filter == null) return IntStream.range(0, rows).toArray();
+        if(snapshot == null) return IntStream.range(0, rows).parallel().filter(filter).toArray();
+        int blocks = (rows + SEQUENTIAL_THRESHOLD - 1) / SEQUENTIAL_THRESHOLD;
+        int[][] parts = new int[blocks][];
+        IntStream.range(0, blocks).parallel().forEach(b -> snapshot.read(() -> {
+            int from = b * SEQUENTIAL_THRESHOLD, to = Math.min(rows, from + SEQUENTIAL_THRESHOLD);
+            parts[b] = IntStream.range(from, to).filter(filter).toArray();
+        }));
+        int length = 0;
+        for (int[] part : parts) length += part.length;
+        int[] result = new int[length];
+        int position = 0;
+        for (int[] part : parts){
+            System.arraycopy(part, 0, result, position, part.length);
+            position += part.length;
+        }
+        return result;
+    }
+
+    /**
+     * 按列存储的数据模型使用基数排序：每一列的值先转换为按无符号比较时顺序
+     * 相同的long，从最后一个排序条件开始逐个进行稳定排序，排序时键与行号
+     * 一起顺序移动，避免随机访问列数据。
+     */
+    private static int[] radixSort(ColumnTableModel columnModel, int[] indices, List<SortKey> keys, int rows){
+        int length = indices.length;
+        long[] values = new long[length], valueBuffer = new long[length];
+        int[] indexBuffer = new int[length];
+        for (int k = keys.size() - 1; k >= 0; k--){
+            SortKey key = keys.get(k);
+            if(key.getSortOrder() == SortOrder.UNSORTED || rows == 0) continue;
+            int column = key.getColumn();
+            long invert = key.getSortOrder() == SortOrder.DESCENDING ? -1L : 0L;
+            int[] current = indices;
+            switch (columnModel.getColumnType(column)){
+                case ColumnTableModel.INT:
+                    IntStream.range(0, length).parallel().forEach(i ->
+                            values[i] = ((long) columnModel.getInt(current[i], column) ^ Long.MIN_VALUE) ^ invert);
+                    break;
+                case ColumnTableModel.LONG:
+                    IntStream.range(0, length).parallel().forEach(i ->
+                            values[i] = (columnModel.getLong(current[i], column) ^ Long.MIN_VALUE) ^ invert);
+                    break;
+                case ColumnTableModel.DOUBLE:
+                    IntStream.range(0, length).parallel().forEach(i -> {
+                        long bits = Double.doubleToLongBits(columnModel.getDouble(current[i], column));
+                        values[i] = (bits < 0 ? ~bits : bits ^ Long.MIN_VALUE) ^ invert;
+                    });
+                    break;
+                default:
+                    int[] ranks = columnModel.stringRanks(column, rows);
+                    IntStream.range(0, length).parallel().forEach(i -> values[i] = (ranks[current[i]] + 1L) ^ invert);
+            }
+            radixSort(values, indices, valueBuffer, indexBuffer);
+        }
+        return indices;
+    }
+
+    /**
+     * 按11位一组从低到高进行稳定的基数排序，所有元素这一组都相同时跳过。
+     * 每一轮先并行统计各个分块的计数，再由各个分块并行写入各自的位置。
+     */
+    private static void radixSort(long[] values, int[] indices, long[] valueBuffer, int[] indexBuffer){
+        int length = values.length;
+        if(length == 0) return;
+        int blocks = Math.max(1, Math.min(ForkJoinPool.getCommonPoolParallelism(), length / SEQUENTIAL_THRESHOLD));
+        int blockSize = (length + blocks - 1) / blocks;
+        long[] source = values, target = valueBuffer;
+        int[] sourceIndex = indices, targetIndex = indexBuffer;
+        for (int shift = 0; shift < 64; shift += RADIX_BITS){
+            int bits = shift;
+            long[] from = source;
+            int[][] counts = new int[blocks][RADIX];
+            IntStream.range(0, blocks).parallel().forEach(b -> {
+                int[] count = counts[b];
+                for (int i = b * blockSize, end = Math.min(length, i + blockSize); i < end; i++)
+                    count[(int) (from[i] >>> bits) & RADIX_MASK]++;
+            });
+            int[] total = new int[RADIX];
+            for (int[] count : counts) for (int d = 0; d < RADIX; d++) total[d] += count[d];
+            if(total[(int) (from[0] >>> bits) & RADIX_MASK] == length) continue;
+            //每个分块在每个桶中的起始位置
+            int position = 0;
+            for (int d = 0; d < RADIX; d++){
+                for (int[] count : counts){
+                    int c = count[d];
+                    count[d] = position;
+                    position += c;
+                }
+            }
+            long[] to = target;
+            int[] fromIndex = sourceIndex, toIndex = targetIndex;
+            IntStream.range(0, blocks).parallel().forEach(b -> {
+                int[] offset = counts[b];
+                for (int i = b * blockSize, end = Math.min(length, i + blockSize); i < end; i++){
+                    int p = offset[(int) (from[i] >>> bits) & RADIX_MASK]++;
+                    to[p] = from[i];
+                    toIndex[p] = fromIndex[i];
+                }
+            });
+            source = to;
+            target = from;
+            sourceIndex = toIndex;
+            targetIndex = fromIndex;
+        }
+        if(sourceIndex != indices) System.arraycopy(sourceIndex, 0, indices, 0, length);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static int compareValues(Object a, Object b){
+        if(a == b) return 0;
+        if(a == null) return -1;
+        if(b == null) return 1;
+        if(a instanceof Number && b instanceof Number)
+            return Double.compare(((Number) a).doubleValue(), ((Number) b).doubleValue());
+        if(a instanceof Comparable && a.getClass() == b.getClass()) return ((Comparable) a).compareTo(b);
+        return a.toString().compareTo(b.toString());
+    }
+
+    private interface RowComparator{
+        int compare(int a, int b);
+    }
+
+    /**
+     * 并行归并排序，结果是稳定的，相等的行保持原来的顺序
+     */
+    private static class SortTask extends RecursiveAction {
+        private final int[] array, buffer;
+        private final int from, to;
+        private final RowComparator comparator;
+
+        SortTask(int[] array, int[] buffer, int from, int to, RowComparator comparator){
+            this.array = array;
+            this.buffer = buffer;
+            this.from = from;
+            this.to = to;
+            this.comparator = comparator;
+        }
+
+        @Override
+        protected void compute() {
+            if(to - from <= SEQUENTIAL_THRESHOLD){
+                sort(array, buffer, from, to, comparator);
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new SortTask(array, buffer, from, middle, comparator),
+                    new SortTask(array, buffer, middle, to, comparator));
+            merge(array, buffer, from, middle, to, comparator);
+        }
+
+        private static void sort(int[] array, int[] buffer, int from, int to, RowComparator comparator){
+            if(to - from <= 32){
+                for (int i = from + 1; i < to; i++){
+                    int value = array[i], j = i - 1;
+                    while (j >= from && comparator.compare(array[j], value) > 0){
+                        array[j + 1] = array[j];
+                        j--;
+                    }
+                    array[j + 1] = value;
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            sort(array, buffer, from, middle, comparator);
+            sort(array, buffer, middle, to, comparator);
+            merge(array, buffer, from, middle, to, comparator);
+        }
+
+        private static void merge(int[] array, int[] buffer, int from, int middle, int to, RowComparator comparator){
+            if(comparator.compare(array[middle - 1], array[middle]) <= 0) return;
+            System.arraycopy(array, from, buffer, from, to - from);
+            int i = from, j = middle, k = from;
+            while (i < middle && j < to) array[k++] = comparator.compare(buffer[j], buffer[i]) < 0 ? buffer[j++] : buffer[i++];
+            while (i < middle) array[k++] = buffer[i++];
+            while (j < to) array[k++] = buffer[j++];
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package dandelion.ui.component;
+
+import dandelion.ui.lang.Text;
+
+import javax.swing.*;
+import java.awt.*;
+
+/**
+ * 在后台线程中为某种语言预先计算好的文本和尺寸，只有在语言、原始
+ * 文本、字体以及计算尺寸用到的宽度限制、图标、间距和边框都没有变化
+ * 时才能被使用。
+ *
+ * @author Ketuer
+ * @since 1.2
+ */
+final class PreparedText {
+    final String language;
+    final Text rawText;
+    final Font font;
+    final String text;
+    final Dimension size;
+    final WrappedText wrapped;
+    final int maxWidth;
+    final Icon icon;
+    final int gap;
+    final Insets insets;
+
+    PreparedText(String language, Text rawText, Font font, String text, Dimension size){
+        this(language, rawText, font, text, size, null, 0, null, 0, null);
+    }
+
+    PreparedText(String language, Text rawText, Font font, String text, Dimension size,
+                 WrappedText wrapped, int maxWidth, Icon icon, int gap, Insets insets){
+        this.language = language;
+        this.rawText = rawText;
+        this.font = font;
+        this.text = text;
+        this.size = size;
+        this.wrapped = wrapped;
+        this.maxWidth = maxWidth;
+        this.icon = icon;
+        this.gap = gap;
+        this.insets = insets;
+    }
+
+    boolean matches(String language, Text rawText, Font font){
+        return this.rawText == rawText && this.font == font && this.language.equals(language);
+    }
+
+    boolean matches(String language, Text rawText, Font font, int maxWidth, Icon icon, int gap, Insets insets){
+        return this.matches(language, rawText, font) && this.maxWidth == maxWidth && this.icon == icon
+                && this.gap == gap && insets.equals(this.insets);
+    }
+}
@@ -0,0 +1,239 @@
+package dandelion.ui.component;
+
+import java.awt.*;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.RoundRectangle2D;
+import java.awt.image.BufferedImage;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 圆角矩形背景的渲染缓存，组件的边框和底色会被预先光栅化为兼容图像，
+ * 之后按九宫格拉伸绘制，尺寸变化时也无需重新绘制圆角。缓存以
+ * (外圆角, 内圆角, 边框颜色, 填充颜色, 设备缩放) 为键，超过内存预算时
+ * 淘汰最久未使用的图像。
+ *
+ * 绘制结果与依次调用两次fillRoundRect相同：先用边框颜色填充整个区域，
+ * 再用填充颜色填充向内缩进1像素的区域。尺寸小于九宫格或者画笔存在
+ * 旋转等变换时，会直接绘制而不经过缓存。
+ *
+ * @author Ketuer
+ * @since 1.2
+ */
+public final class RoundRectCache {
+
+    private static final Map<Key, BufferedImage> cache = new LinkedHashMap<>(16, 0.75f, true);
+    private static long memoryBudget = 4L * 1024 * 1024;
+    private static long memoryUsage = 0;
+
+    private RoundRectCache(){ }
+
+    /**
+     * 绘制带边框的圆角矩形。
+     * @param g 画笔
+     * @param x x坐标
+     * @param y y坐标
+     * @param width 宽度
+     * @param height 高度
+     * @param outerArc 边框圆角
+     * @param innerArc 填充圆角
+     * @param border 边框颜色
+     * @param fill 填充颜色
+     */
+    public static void paint(Graphics2D g, int x, int y, int width, int height,
+                             int outerArc, int innerArc, Color border, Color fill){
+        if(!paintCached(g, x, y, width, height, outerArc, innerArc, border, fill)){
+            g.setColor(border);
+            g.fillRoundRect(x, y, width, height, outerArc, outerArc);
+            g.setColor(fill);
+            g.fillRoundRect(x + 1, y + 1, width - 2, height - 2, innerArc, innerArc);
+        }
+    }
+
+    /**
+     * 绘制不带边框的圆角矩形。
+     * @param g 画笔
+     * @param x x坐标
+     * @param y y坐标
+     * @param width 宽度
+     * @param height 高度
+     * @param arc 圆角
+     * @param fill 填充颜色
+     */
+    public static void fill(Graphics2D g, int x, int y, int width, int height, int arc, Color fill){
+        if(!paintCached(g, x, y, width, height, arc, 0, null, fill)){
+            g.setColor(fill);
+            g.fillRoundRect(x, y, width, height, arc, arc);
+        }
+    }
+
+    /**
+     * 设置缓存可以占用的内存大小，超出时会淘汰最久未使用的图像。
+     * @param bytes 字节数，为0时不使用缓存
+     */
+    public static synchronized void setMemoryBudget(long bytes){
+        if(bytes < 0) throw new IllegalArgumentException("内存预算不能为负数！");
+        memoryBudget = bytes;
+        trim();
+    }
+
+    public static synchronized long getMemoryBudget(){
+        return memoryBudget;
+    }
+
+    /**
+     * 获取缓存当前占用的内存大小。
+     * @return 字节数
+     */
+    public static synchronized long getMemoryUsage(){
+        return memoryUsage;
+    }
+
+    /**
+     * 清空缓存
+     */
+    public static synchronized void clear(){
+        cache.clear();
+        memoryUsage = 0;
+    }
+
+    private static boolean paintCached(Graphics2D g, int x, int y, int width, int height,
+                                       int outerArc, int innerArc, Color border, Color fill){
+        AffineTransform transform = g.getTransform();
+        int type = transform.getType() & ~AffineTransform.TYPE_TRANSLATION;
+        if(type != AffineTransform.TYPE_IDENTITY && type != AffineTransform.TYPE_UNIFORM_SCALE) return false;
+        double scale = transform.getScaleX();
+        if(scale <= 0) return false;
+
+        //九宫格的角需要容纳外圆角、内圆角以及抗锯齿的边缘
+        int radius = Math.max(outerArc, border == null ? 0 : innerArc + 2) / 2 + 1;
+        int corner = (int) Math.ceil(radius * scale);
+        int size = corner * 2 + 1;
+        double deviceX = x * scale + transform.getTranslateX(), deviceY = y * scale + transform.getTranslateY();
+        double deviceWidth = width * scale, deviceHeight = height * scale;
+        //落在非整数像素上时光栅化结果会随位置变化，无法复用
+        if(!isInteger(deviceX) || !isInteger(deviceY) || !isInteger(deviceWidth) || !isInteger(deviceHeight)) return false;
+        int left = (int) Math.round(deviceX), top = (int) Math.round(deviceY);
+        int right = left + (int) Math.round(deviceWidth), bottom = top + (int) Math.round(deviceHeight);
+        if(right - left < size || bottom - top < size) return false;
+
+        BufferedImage image = get(g.getDeviceConfiguration(),
+                new Key(outerArc, innerArc, border, fill, scale), size);
+        if(image == null) return false;
+
+        Graphics2D device = (Graphics2D) g.create();
+        try {
+            device.setTransform(new AffineTransform());
+            device.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR);
+            int[] dx = {left, left + corner, right - corner, right};
+            int[] dy = {top, top + corner, bottom - corner, bottom};
+            int[] s = {0, corner, corner + 1, size};
+            for (int row = 0; row < 3; row++){
+                for (int col = 0; col < 3; col++){
+                    if(row == 1 && col == 1) continue;
+                    device.drawImage(image, dx[col], dy[row], dx[col + 1], dy[row + 1],
+                            s[col], s[row], s[col + 1], s[row + 1], null);
+                }
+            }
+            //中心区域是纯色，直接填充比拉伸图像快得多
+            device.setColor(new Color(image.getRGB(corner, corner), true));
+            device.fillRect(dx[1], dy[1], dx[2] - dx[1], dy[2] - dy[1]);
+        }finally {
+            device.dispose();
+        }
+        return true;
+    }
+
+    private static boolean isInteger(double value){
+        return Math.abs(value - Math.rint(value)) < 1e-6;
+    }
+
+    private static BufferedImage get(GraphicsConfiguration configuration, Key key, int size){
+        long bytes = (long) size * size * 4;
+        synchronized (RoundRectCache.class){
+            BufferedImage image = cache.get(key);
+            if(image != null) return image;
+            if(bytes > memoryBudget) return null;
+        }
+        BufferedImage image = render(configuration, key, size);
+        synchronized (RoundRectCache.class){
+            BufferedImage previous = cache.put(key, image);
+            if(previous != null) memoryUsage -= (long) previous.getWidth() * previous.getHeight() * 4;
+            memoryUsage += bytes;
+            trim();
+        }
+        return image;
+    }
+
+    private static BufferedImage render(GraphicsConfiguration configuration, Key key, int size){
+        BufferedImage image = configuration != null
+                ? configuration.createCompatibleImage(size, size, Transparency.TRANSLUCENT)
+                : new BufferedImage(size, size, BufferedImage.TYPE_INT_ARGB_PRE);
+        Graphics2D g2d = image.createGraphics();
+        try {
+            g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            g2d.scale(key.scale, key.scale);
+            double length = size / key.scale;
+            if(key.hasBorder){
+                g2d.setColor(new Color(key.border, true));
+                g2d.fill(new RoundRectangle2D.Double(0, 0, length, length, key.outerArc, key.outerArc));
+                g2d.setColor(new Color(key.fill, true));
+                g2d.fill(new RoundRectangle2D.Double(1, 1, length - 2, length - 2, key.innerArc, key.innerArc));
+            }else {
+                g2d.setColor(new Color(key.fill, true));
+                g2d.fill(new RoundRectangle2D.Double(0, 0, length, length, key.outerArc, key.outerArc));
+            }
+        }finally {
+            g2d.dispose();
+        }
+        return image;
+    }
+
+    private static void trim(){
+        Iterator<BufferedImage> iterator = cache.values().iterator();
+        while (memoryUsage > memoryBudget && iterator.hasNext()){
+            BufferedImage image = iterator.next();
+            memoryUsage -= (long) image.getWidth() * image.getHeight() * 4;
+            iterator.remove();
+        }
+    }
+
+    private static final class Key{
+        private final int outerArc;
+        private final int innerArc;
+        private final boolean hasBorder;
+        private final int border;
+        private final int fill;
+        private final double scale;
+
+        private Key(int outerArc, int innerArc, Color border, Color fill, double scale){
+            this.outerArc = outerArc;
+            this.hasBorder = border != null;
+            this.innerArc = hasBorder ? innerArc : 0;
+            this.border = hasBorder ? border.getRGB() : 0;
+            this.fill = fill.getRGB();
+            this.scale = scale;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key key = (Key) o;
+            return outerArc == key.outerArc && innerArc == key.innerArc && hasBorder == key.hasBorder
+                    && border == key.border && fill == key.fill && Double.compare(scale, key.scale) == 0;
+        }
+
+        @Override
+        public int hashCode() {
+            int result = outerArc;
+            result = 31 * result + innerArc;
+            result = 31 * result + (hasBorder ? 1 : 0);
+            result = 31 * result + border;
+            result = 31 * result + fill;
+            result = 31 * result + Double.hashCode(scale);
+            return result;
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package dandelion.ui.component;
+
+import dandelion.ui.util.GenerationCache;
+
+import java.awt.*;
+import java.awt.font.FontRenderContext;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Rectangle2D;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 文字尺寸测量服务，所有组件共用同一份缓存，相同字体下已经测量过的文字
+ * 不会再重复计算。缓存的淘汰方式见 {@link GenerationCache}。
+ *
+ * @author Ketuer
+ * @since 1.2
+ */
+public final class TextMetrics {
+
+    /**
+     * 组件布局时统一使用的FontRenderContext
+     */
+    public static final FontRenderContext DEFAULT_CONTEXT = new FontRenderContext(new AffineTransform(), true, true);
+
+    private static final LongAdder hits = new LongAdder();
+    private static final LongAdder misses = new LongAdder();
+    private static final GenerationCache<Key, Rectangle2D.Float> cache = new GenerationCache<>(4096);
+
+    private TextMetrics(){ }
+
+    /**
+     * 获取文字在布局时占用的边界，等同于Font.getStringBounds。
+     * @param font 字体
+     * @param text 文字
+     * @return 边界，可以随意修改
+     */
+    public static Rectangle2D.Float getStringBounds(Font font, String text){
+        return getStringBounds(font, text, DEFAULT_CONTEXT);
+    }
+
+    /**
+     * 获取文字在指定FontRenderContext下占用的边界，等同于Font.getStringBounds。
+     * @param font 字体
+     * @param text 文字
+     * @param context FontRenderContext
+     * @return 边界，可以随意修改
+     */
+    public static Rectangle2D.Float getStringBounds(Font font, String text, FontRenderContext context){
+        Key key = new Key(font, context, text);
+        Rectangle2D.Float bounds = cache.get(key);
+        if(bounds != null){
+            hits.increment();
+        }else {
+            misses.increment();
+            Rectangle2D r = font.getStringBounds(text, context);
+            bounds = new Rectangle2D.Float((float) r.getX(), (float) r.getY(), (float) r.getWidth(), (float) r.getHeight());
+            cache.put(key, bounds);
+        }
+        return new Rectangle2D.Float(bounds.x, bounds.y, bounds.width, bounds.height);
+    }
+
+    /**
+     * 设置每一代缓存最多保存的文字数量
+     * @param size 数量
+     */
+    public static void setCacheSize(int size){
+        cache.setCapacity(size);
+    }
+
+    public static long getHitCount(){
+        return hits.sum();
+    }
+
+    public static long getMissCount(){
+        return misses.sum();
+    }
+
+    /**
+     * 获取缓存命中率
+     * @return 命中率，还没有测量过任何文字时为0
+     */
+    public static double getHitRate(){
+        long hit = hits.sum(), total = hit + misses.sum();
+        return total == 0 ? 0 : (double) hit / total;
+    }
+
+    /**
+     * 清空缓存和统计数据
+     */
+    public static synchronized void clear(){
+        cache.clear();
+        hits.reset();
+        misses.reset();
+    }
+
+    private static final class Key{
+        private final Font font;
+        private final FontRenderContext context;
+        private final String text;
+        private final int hash;
+
+        private Key(Font font, FontRenderContext context, String text){
+            this.font = font;
+            this.context = context;
+            this.text = text;
+            this.hash = (font.hashCode() * 31 + context.hashCode()) * 31 + text.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key key = (Key) o;
+            return hash == key.hash && text.equals(key.text) && font.equals(key.font) && context.equals(key.context);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package dandelion.ui.component;
+
+import java.awt.*;
+import java.awt.font.LineBreakMeasurer;
+import java.awt.font.LineMetrics;
+import java.awt.font.TextAttribute;
+import java.awt.font.TextLayout;
+import java.text.AttributedString;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 自动换行的文本排版，使用LineBreakMeasurer按照宽度断行，每个段落
+ * 只需要遍历一次，换行符会开始新的段落。同一段文本在不同宽度下的
+ * 排版结果会被缓存，实例创建后不可修改，可以在任意线程中使用。
+ *
+ * @author Ketuer
+ * @since 1.2
+ */
+final class WrappedText {
+    private static final int CACHED_WIDTHS = 4;
+
+    private final String text;
+    private final Font font;
+    private final Map<Integer, Lines> layouts = new LinkedHashMap<Integer, Lines>(8, 0.75f, true){
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, Lines> eldest) {
+            return size() > CACHED_WIDTHS;
+        }
+    };
+
+    WrappedText(String text, Font font){
+        this.text = text;
+        this.font = font;
+    }
+
+    boolean matches(String text, Font font){
+        return this.text.equals(text) && this.font.equals(font);
+    }
+
+    /**
+     * 获取指定宽度下的排版结果
+     * @param width 每一行的最大宽度
+     * @return 排版结果
+     */
+    Lines layout(int width){
+        synchronized (layouts){
+            Lines lines = layouts.get(width);
+            if(lines == null){
+                lines = this.breakLines(width);
+                layouts.put(width, lines);
+            }
+            return lines;
+        }
+    }
+
+    private Lines breakLines(int width){
+        List<TextLayout> lines = new ArrayList<>();
+        List<Float> baselines = new ArrayList<>();
+        float y = 0;
+        int start = 0, length = text.length();
+        while (start < length){
+            int end = text.indexOf('\n', start);
+            if(end < 0) end = length;
+            int paragraphEnd = end > start && text.charAt(end - 1) == '\r' ? end - 1 : end;
+            if(paragraphEnd == start){
+                LineMetrics metrics = font.getLineMetrics(" ", TextMetrics.DEFAULT_CONTEXT);
+                y += metrics.getHeight();
+            }else {
+                AttributedString paragraph = new AttributedString(text.substring(start, paragraphEnd));
+                paragraph.addAttribute(TextAttribute.FONT, font);
+                LineBreakMeasurer measurer = new LineBreakMeasurer(paragraph.getIterator(), TextMetrics.DEFAULT_CONTEXT);
+                int paragraphLength = paragraphEnd - start;
+                while (measurer.getPosition() < paragraphLength){
+                    TextLayout line = measurer.nextLayout(Math.max(width, 1));
+                    y += line.getAscent();
+                    lines.add(line);
+                    baselines.add(y);
+                    y += line.getDescent() + line.getLeading();
+                }
+            }
+            start = end + 1;
+        }
+        float[] baselineArray = new float[baselines.size()];
+        for (int i = 0; i < baselineArray.length; i++) baselineArray[i] = baselines.get(i);
+        return new Lines(lines.toArray(new TextLayout[0]), baselineArray, (int) Math.ceil(y));
+    }
+
+    static final class Lines{
+        private final TextLayout[] lines;
+        private final float[] baselines;
+        final int height;
+
+        private Lines(TextLayout[] lines, float[] baselines, int height){
+            this.lines = lines;
+            this.baselines = baselines;
+            this.height = height;
+        }
+
+        /**
+         * 使用画笔当前的颜色绘制所有行
+         * @param g 画笔
+         * @param x 左侧x坐标
+         * @param width 可用宽度，用于对齐每一行
+         * @param y 顶部y坐标
+         * @param alignment 每一行在剩余宽度中的位置，0为左对齐，0.5为居中，1为右对齐
+         */
+        void draw(Graphics2D g, float x, float width, float y, float alignment){
+            Rectangle clip = g.getClipBounds();
+            for (int i = 0; i < lines.length; i++){
+                float baseline = y + baselines[i];
+                if(clip != null && (baseline + lines[i].getDescent() < clip.y || baseline - lines[i].getAscent() > clip.y + clip.height))
+                    continue;
+                float space = width - lines[i].getVisibleAdvance();
+                lines[i].draw(g, x + Math.max(0, space * alignment), baseline);
+            }
+        }
+    }
+}
@@ -3,6 +3,8 @@ package dandelion.ui.gui;
 import dandelion.ui.color.ColorConfig;
 import dandelion.ui.color.ColorSwitch;
 import dandelion.ui.component.DButton;
+import dandelion.ui.image.ImageLoader;
+import dandelion.ui.image.ImageScaler;
 import dandelion.ui.lang.LanguageSwitch;
 import dandelion.ui.lang.Text;
 import dandelion.ui.lang.i18n;
@@ -11,13 +13,13 @@ import dandelion.ui.tip.TipConfirm;
 import dandelion.ui.tip.TipLoad;
 import dandelion.ui.tip.TipSelect;
 
-import javax.imageio.ImageIO;
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.*;
-import java.io.IOException;
-import java.io.InputStream;
-import java.net.URL;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * 基于<code>java.awt.Frame</code>改进的界面，我们称为Gui界面，
@@ -55,10 +57,14 @@ import java.net.URL;
 public class Gui extends JFrame implements ColorSwitch, LanguageSwitch {
 
     private Image backgroundImg;
+    //最近一次设置背景图片的请求，较早的请求加载完成时不再使用其结果
+    private volatile Object backgroundRequest;
+    private final BackgroundCache backgroundCache = new BackgroundCache();
     private Loading load = new TipLoad(this);
     private final Text title;
     private ColorConfig colorConfig = ColorSwitch.LIGHT;
     private String language = i18n.getDefaultLanguage();
+    private final SwitchRegistry registry = new SwitchRegistry();
 
     public Gui(Text title, int width, int height){
         this(title, width, height, false);
@@ -85,6 +91,7 @@ public class Gui extends JFrame implements ColorSwitch, LanguageSwitch {
         }
         this.pack();
         this.setLayout(null);
+        this.registry.track(this.getContentPane());
         this.getContentPane().setBackground(colorConfig.getBackground());
         int screenWidth = Toolkit.getDefaultToolkit().getScreenSize().width;
         int screenHeight = Toolkit.getDefaultToolkit().getScreenSize().height;
@@ -121,30 +128,31 @@ public class Gui extends JFrame implements ColorSwitch, LanguageSwitch {
     }
 
     /**
-     * 设置Gui界面的背景图片，图片会被拉伸至Gui的长宽大小。
+     * 设置Gui界面的背景图片，图片会被拉伸至Gui的长宽大小。图片在后台加载，
+     * 加载完成后界面会自动重绘。多次设置时只会显示最后一次设置的图片。
      * @param url 网络URL或是包内路径
      */
     public void setBackgroundImage(String url){
-        try {
-            if(url.contains("http")){
-                this.backgroundImg = ImageIO.read(new URL(url));
-            }else {
-                InputStream stream = this.getClass().getResourceAsStream(url);
-                if(stream != null) this.backgroundImg = ImageIO.read(stream);
-                else throw new IOException("无法读取resource下的资源 "+url+"，请确定文件是否存在！");
+        int type = url.contains("http") ? ImageLoader.NETWORK : ImageLoader.JAR;
+        Object request = new Object();
+        this.backgroundRequest = request;
+        ImageLoader.load(this.getClass(), url, type).whenComplete((image, throwable) -> {
+            if(backgroundRequest != request) return;
+            if(throwable != null){
+                (throwable.getCause() != null ? throwable.getCause() : throwable).printStackTrace();
+                return;
             }
-        }catch (IOException e){
-            e.printStackTrace();
-        }
+            SwingUtilities.invokeLater(() -> {
+                if(backgroundRequest != request) return;
+                this.backgroundImg = image;
+                this.repaint();
+            });
+        });
     }
 
     @Override
     public void paint(Graphics g) {
-        if(backgroundImg != null){
-            Graphics2D g2d = (Graphics2D) g;
-            g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-            g2d.drawImage(backgroundImg, 0, 0, getWidth(), getHeight(), null);
-        }
+        if(backgroundImg != null) backgroundCache.paint((Graphics2D) g);
         super.paint(g);
     }
 
@@ -195,17 +203,15 @@ public class Gui extends JFrame implements ColorSwitch, LanguageSwitch {
 
     /**
      * 进行颜色切换，它会修改Gui的背景颜色，同时会按照内
-     * 部组件设置，修改内部组件的颜色。
+     * 部组件设置，修改内部组件的颜色。所有层级的组件都会在
+     * 一次遍历中完成切换。
      * @param config 颜色配置
      */
     @Override
     public void switchColor(ColorConfig config) {
         this.colorConfig = config;
         this.getContentPane().setBackground(config.getBackground());
-        for(Component c : this.getContentPane().getComponents()){
-            if(c instanceof ColorSwitch)
-                ((ColorSwitch) c).switchColor(config);
-        }
+        this.registry.switchColor(config);
         this.repaint();
     }
 
@@ -217,13 +223,34 @@ public class Gui extends JFrame implements ColorSwitch, LanguageSwitch {
     public void switchLanguage(String language) {
         this.language = language;
         this.setTitle(i18n.format(title, language));
-        for(Component c : this.getContentPane().getComponents()){
-            if(c instanceof LanguageSwitch)
-                ((LanguageSwitch) c).switchLanguage(language);
-        }
+        this.registry.switchLanguage(language);
         this.repaint();
     }
 
+    /**
+     * 分两个阶段进行语言切换：先在后台线程中并行解析所有组件的文本并计
+     * 算文字尺寸，再在EDT中一次性应用到界面上并统一刷新，适合组件非常
+     * 多的界面，切换过程中窗口不会失去响应。
+     * @param language 语言
+     * @return 新语言显示在界面上之后完成的Future
+     *
+     * @since 1.2
+     */
+    public CompletableFuture<Void> switchLanguageAsync(String language){
+        List<LanguageSwitch> targets = new ArrayList<>();
+        for (Component c : registry.getSubscribers()){
+            if(c instanceof LanguageSwitch) targets.add((LanguageSwitch) c);
+        }
+        return CompletableFuture
+                .runAsync(() -> targets.parallelStream().forEach(target -> target.prepareLanguage(language)))
+                .thenRunAsync(() -> {
+                    this.switchLanguage(language);
+                    this.getContentPane().revalidate();
+                }, SwingUtilities::invokeLater)
+                // 重绘请求已在上一个任务中提交，排在其后的任务执行时新语言已经绘制完成
+                .thenRunAsync(() -> { }, SwingUtilities::invokeLater);
+    }
+
     /**
      * 显示一个基于本窗口的提示确认框。
      * @param text 提示文本
@@ -265,6 +292,16 @@ public class Gui extends JFrame implements ColorSwitch, LanguageSwitch {
         super.dispose();
     }
 
+    /**
+     * 获取此界面的订阅表，界面内所有支持颜色或语言切换的组件都在其中。
+     * @return 订阅表
+     *
+     * @since 1.2
+     */
+    public SwitchRegistry getSwitchRegistry() {
+        return registry;
+    }
+
     /**
      * 获取当前所选的颜色配置
      * @return 颜色配置
@@ -327,4 +364,68 @@ public class Gui extends JFrame implements ColorSwitch, LanguageSwitch {
     public void dispose() {
         throw new UnsupportedOperationException("无法对可见性进行直接操作，请使用display()方法！");
     }
+
+    /**
+     * 背景图片缓存，按窗口当前的像素大小和屏幕配置保存一份缩放好的兼容图像，
+     * 绘制时只需要一次拷贝。窗口大小变化的过程中先拉伸旧的缓存作为近似，
+     * 等大小稳定下来之后再进行一次高质量缩放。
+     */
+    private class BackgroundCache {
+        private static final int SETTLE_DELAY = 150;
+
+        private final Timer timer = new Timer(SETTLE_DELAY, e -> {
+            this.rescale();
+            repaint();
+        });
+        private Image source;
+        private GraphicsConfiguration configuration;
+        private BufferedImage scaled;
+        private int width, height;
+
+        BackgroundCache(){
+            timer.setRepeats(false);
+        }
+
+        void paint(Graphics2D g){
+            double scale = g.getTransform().getScaleX();
+            int width = (int) Math.ceil(getWidth() * scale), height = (int) Math.ceil(getHeight() * scale);
+            if(width <= 0 || height <= 0) return;
+            boolean sameSource = source == backgroundImg && configuration == g.getDeviceConfiguration();
+            if(sameSource && scaled != null && scaled.getWidth() == width && scaled.getHeight() == height){
+                g.drawImage(scaled, 0, 0, getWidth(), getHeight(), null);
+                return;
+            }
+            this.width = width;
+            this.height = height;
+            if(!sameSource || scaled == null){
+                source = backgroundImg;
+                configuration = g.getDeviceConfiguration();
+                this.rescale();
+                g.drawImage(scaled != null ? scaled : source, 0, 0, getWidth(), getHeight(), null);
+                return;
+            }
+            Graphics2D approximate = (Graphics2D) g.create();
+            try {
+                approximate.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR);
+                approximate.drawImage(scaled, 0, 0, getWidth(), getHeight(), null);
+            }finally {
+                approximate.dispose();
+            }
+            timer.restart();
+        }
+
+        private void rescale(){
+            if(source == null || width <= 0 || height <= 0) return;
+            BufferedImage image = ImageScaler.scale(source, width, height);
+            if(image == null) return;
+            BufferedImage target = configuration.createCompatibleImage(width, height, image.getTransparency());
+            Graphics2D g2d = target.createGraphics();
+            try {
+                g2d.drawImage(image, 0, 0, null);
+            }finally {
+                g2d.dispose();
+            }
+            scaled = target;
+        }
+    }
 }
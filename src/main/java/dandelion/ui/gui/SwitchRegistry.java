@@ -0,0 +1,164 @@
+package dandelion.ui.gui;
+
+import dandelion.ui.color.ColorConfig;
+import dandelion.ui.color.ColorSwitch;
+import dandelion.ui.lang.LanguageSwitch;
+
+import java.awt.*;
+import java.awt.event.ContainerEvent;
+import java.awt.event.ContainerListener;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.function.Consumer;
+
+/**
+ * 颜色和语言切换的订阅表，它会跟踪一个容器内的所有组件，组件被添加时自动
+ * 订阅，被移除时自动取消订阅，订阅表只持有组件的弱引用，不会造成内存泄漏。
+ * 进行切换时只需要对所有订阅者进行一次遍历，而不是由每个容器各自递归。
+ *
+ * <p>
+ * 遍历过程中，容器组件可以通过{@link #isCovered(Component)}得知它的子组件
+ * 也会被订阅表切换，从而跳过自己的递归。
+ *
+ * @author Ketuer
+ * @since 1.2
+ */
+public class SwitchRegistry {
+    private static final ThreadLocal<SwitchRegistry> dispatching = new ThreadLocal<>();
+
+    private final Map<Component, WeakReference<Component>> tracked = new WeakHashMap<>();
+    private final List<WeakReference<Component>> subscribers = new ArrayList<>();
+    private final ContainerListener listener = new ContainerListener() {
+        @Override
+        public void componentAdded(ContainerEvent e) {
+            register(e.getChild());
+        }
+
+        @Override
+        public void componentRemoved(ContainerEvent e) {
+            unregister(e.getChild());
+        }
+    };
+
+    /**
+     * 开始跟踪容器，容器内现有和之后添加的组件都会被订阅。
+     * @param root 容器
+     */
+    public synchronized void track(Container root){
+        root.addContainerListener(listener);
+        for (Component c : root.getComponents()) register(c);
+    }
+
+    /**
+     * 订阅组件，如果是容器，其内部的所有组件也会被订阅。
+     * @param component 组件
+     */
+    public synchronized void register(Component component){
+        if(tracked.containsKey(component)) return;
+        WeakReference<Component> reference = null;
+        if(component instanceof ColorSwitch || component instanceof LanguageSwitch){
+            reference = new WeakReference<>(component);
+            subscribers.add(reference);
+        }
+        tracked.put(component, reference);
+        if(component instanceof Container){
+            Container container = (Container) component;
+            container.addContainerListener(listener);
+            for (Component c : container.getComponents()) register(c);
+        }
+    }
+
+    /**
+     * 取消订阅组件，如果是容器，其内部的所有组件也会被取消订阅。
+     * @param component 组件
+     */
+    public synchronized void unregister(Component component){
+        if(!tracked.containsKey(component)) return;
+        WeakReference<Component> reference = tracked.remove(component);
+        if(reference != null) reference.clear();
+        if(component instanceof Container){
+            Container container = (Container) component;
+            container.removeContainerListener(listener);
+            for (Component c : container.getComponents()) unregister(c);
+        }
+    }
+
+    /**
+     * 获取当前所有订阅者。
+     * @return 订阅者
+     */
+    public synchronized List<Component> getSubscribers(){
+        List<Component> list = new ArrayList<>(subscribers.size());
+        for (WeakReference<Component> reference : subscribers) {
+            Component c = reference.get();
+            if(c != null) list.add(c);
+        }
+        return list;
+    }
+
+    /**
+     * 为所有订阅者切换颜色。
+     * @param config 颜色配置
+     */
+    public void switchColor(ColorConfig config){
+        this.dispatch(c -> {
+            if(c instanceof ColorSwitch) ((ColorSwitch) c).switchColor(config);
+        });
+    }
+
+    /**
+     * 为所有订阅者切换语言。
+     * @param language 语言
+     */
+    public void switchLanguage(String language){
+        this.dispatch(c -> {
+            if(c instanceof LanguageSwitch) ((LanguageSwitch) c).switchLanguage(language);
+        });
+    }
+
+    /**
+     * 依次对所有订阅者执行操作，某个订阅者出错时不会影响其他订阅者，
+     * 第一个错误会在遍历结束后抛出。
+     */
+    private void dispatch(Consumer<Component> action){
+        List<Component> targets;
+        synchronized (this){
+            subscribers.removeIf(reference -> reference.get() == null);
+            targets = this.getSubscribers();
+        }
+        SwitchRegistry previous = dispatching.get();
+        dispatching.set(this);
+        RuntimeException failure = null;
+        try {
+            for (Component c : targets) {
+                try {
+                    action.accept(c);
+                }catch (RuntimeException e){
+                    if(failure == null) failure = e;
+                    else failure.addSuppressed(e);
+                }
+            }
+        }finally {
+            if(previous == null) dispatching.remove();
+            else dispatching.set(previous);
+        }
+        if(failure != null) throw failure;
+    }
+
+    /**
+     * 判断当前是否正在由订阅表进行切换，并且该组件的子组件也在订阅表中，
+     * 此时容器组件无需再对子组件进行递归切换。
+     * @param component 容器组件
+     * @return 是否已被订阅表覆盖
+     */
+    public static boolean isCovered(Component component){
+        SwitchRegistry registry = dispatching.get();
+        if(registry == null) return false;
+        synchronized (registry){
+            return registry.tracked.containsKey(component);
+        }
+    }
+}
@@ -0,0 +1,303 @@
+package dandelion.ui.image;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.*;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * 网络图片的磁盘缓存。每个链接对应一个索引文件，记录服务器返回的ETag和
+ * Last-Modified以及图片内容的摘要；图片以解码后的像素数据按内容摘要保存，
+ * 内容相同的图片只会保存一份，再次读取时无需解码。
+ *
+ * <p>
+ * 命中缓存时会立即返回缓存的图片，同时在后台向服务器发送条件请求，每个
+ * 链接在一次运行中只会校验一次，图片有变化时会更新缓存并通知调用者。
+ * 缓存总大小超出预算时，按最近使用时间淘汰图片数据，同时删除指向这些
+ * 数据的索引文件。缓存目录和其中的文件只有当前用户可以访问。
+ *
+ * @author Ketuer
+ * @since 1.2
+ */
+final class DiskImageCache {
+    private static final int MAGIC = 0x444C4931;
+    private static final String INDEX_SUFFIX = ".idx";
+    private static final String DATA_SUFFIX = ".img";
+    //图片数据头部的长度：魔数、宽度、高度、是否有透明通道
+    private static final int HEADER_LENGTH = 13;
+    private static final int MAX_PIXELS = 1 << 26;
+    //deflate格式的最大压缩比约为1032:1，用于判断头部记录的大小是否可信
+    private static final int MAX_DEFLATE_RATIO = 1032;
+
+    private final File directory;
+    private final long budget;
+    private final Executor executor;
+    private final Consumer<URL> onChanged;
+    private final Map<String, Boolean> validated = new ConcurrentHashMap<>();
+
+    DiskImageCache(File directory, long budget, Executor executor, Consumer<URL> onChanged){
+        this.directory = directory;
+        this.budget = budget;
+        this.executor = executor;
+        this.onChanged = onChanged;
+    }
+
+    /**
+     * 读取网络图片，优先使用磁盘缓存
+     * @param url 链接
+     * @return 图片
+     * @throws IOException 缓存中没有这张图片并且无法从网络读取
+     */
+    BufferedImage read(URL url) throws IOException {
+        String id = digest(url.toExternalForm().getBytes(StandardCharsets.UTF_8));
+        Properties index = this.readIndex(id);
+        if(index != null){
+            File data = new File(directory, index.getProperty("content") + DATA_SUFFIX);
+            BufferedImage image = readImage(data);
+            if(image != null){
+                data.setLastModified(System.currentTimeMillis());
+                if(validated.putIfAbsent(id, Boolean.TRUE) == null)
+                    executor.execute(() -> this.revalidate(url, id, index));
+                return image;
+            }
+        }
+        validated.put(id, Boolean.TRUE);
+        return this.fetch(url, id, null);
+    }
+
+    private void revalidate(URL url, String id, Properties index){
+        try {
+            if(this.fetch(url, id, index) != null) onChanged.accept(url);
+        }catch (IOException e){
+            //无法连接服务器时继续使用缓存的图片
+        }
+    }
+
+    /**
+     * 从服务器读取图片并写入缓存
+     * @return 新的图片，服务器返回304时为null
+     */
+    private BufferedImage fetch(URL url, String id, Properties previous) throws IOException {
+        URLConnection connection = url.openConnection();
+        connection.setConnectTimeout(10000);
+        connection.setReadTimeout(30000);
+        if(previous != null){
+            String etag = previous.getProperty("etag");
+            String lastModified = previous.getProperty("lastModified");
+            if(etag != null) connection.setRequestProperty("If-None-Match", etag);
+            if(lastModified != null) connection.setRequestProperty("If-Modified-Since", lastModified);
+        }
+        if(connection instanceof HttpURLConnection){
+            int code = ((HttpURLConnection) connection).getResponseCode();
+            if(code == HttpURLConnection.HTTP_NOT_MODIFIED) return null;
+            if(code != HttpURLConnection.HTTP_OK) throw new IOException("无法读取网络图片 "+url+"，服务器返回 "+code);
+        }
+        byte[] bytes;
+        try (InputStream input = connection.getInputStream()){
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int length;
+            while ((length = input.read(buffer)) > 0) output.write(buffer, 0, length);
+            bytes = output.toByteArray();
+        }
+        BufferedImage image = ImageIO.read(new ByteArrayInputStream(bytes));
+        if(image == null) throw new IOException("无法解码图片 "+url+"，不支持此图片格式！");
+
+        String content = digest(bytes);
+        Properties index = new Properties();
+        index.setProperty("url", url.toExternalForm());
+        index.setProperty("content", content);
+        String etag = connection.getHeaderField("ETag");
+        String lastModified = connection.getHeaderField("Last-Modified");
+        if(etag != null) index.setProperty("etag", etag);
+        if(lastModified != null) index.setProperty("lastModified", lastModified);
+        try {
+            File data = new File(directory, content + DATA_SUFFIX);
+            if(!data.isFile()) this.write(data, output -> writeImage(image, output));
+            this.write(new File(directory, id + INDEX_SUFFIX), output -> index.store(output, null));
+            this.trim();
+        }catch (IOException e){
+            //缓存目录不可用时不影响图片的使用
+        }
+        return image;
+    }
+
+    private Properties readIndex(String id){
+        File file = new File(directory, id + INDEX_SUFFIX);
+        if(!file.isFile()) return null;
+        Properties index = new Properties();
+        try (InputStream input = new FileInputStream(file)){
+            index.load(input);
+        }catch (IOException e){
+            return null;
+        }
+        //内容摘要会被用作文件名，只接受digest方法生成的格式
+        String content = index.getProperty("content");
+        return content != null && content.matches("[0-9a-f]{40}") ? index : null;
+    }
+
+    /**
+     * 先写入临时文件再替换，避免读取到写了一半的文件
+     */
+    private void write(File file, Content content) throws IOException {
+        this.createDirectory();
+        //Files.createTempFile在支持POSIX权限的系统中创建只有当前用户可以读写的文件
+        Path temp = Files.createTempFile(directory.toPath(), "dandelion", ".tmp");
+        try {
+            try (OutputStream output = new BufferedOutputStream(Files.newOutputStream(temp))){
+                content.write(output);
+            }
+            Files.move(temp, file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * 创建只有当前用户可以访问的缓存目录
+     */
+    private void createDirectory() throws IOException {
+        if(directory.isDirectory()) return;
+        Path path = directory.toPath();
+        if(FileSystems.getDefault().supportedFileAttributeViews().contains("posix")){
+            Files.createDirectories(path, PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rwx------")));
+        }else {
+            Files.createDirectories(path);
+            directory.setReadable(false, false);
+            directory.setWritable(false, false);
+            directory.setExecutable(false, false);
+            directory.setReadable(true, true);
+            directory.setWritable(true, true);
+            directory.setExecutable(true, true);
+        }
+    }
+
+    /**
+     * 按最近使用时间淘汰图片数据，索引文件也计入缓存大小，指向已删除数据的
+     * 索引文件会一起删除。
+     */
+    private void trim(){
+        File[] files = directory.listFiles((dir, name) -> name.endsWith(DATA_SUFFIX) || name.endsWith(INDEX_SUFFIX));
+        if(files == null) return;
+        long total = 0;
+        for (File file : files) total += file.length();
+        if(total <= budget) return;
+        File[] data = Arrays.stream(files).filter(file -> file.getName().endsWith(DATA_SUFFIX)).toArray(File[]::new);
+        Arrays.sort(data, Comparator.comparingLong(File::lastModified));
+        for (File file : data){
+            if(total <= budget) break;
+            long length = file.length();
+            if(file.delete()) total -= length;
+        }
+        for (File file : files){
+            String name = file.getName();
+            if(!name.endsWith(INDEX_SUFFIX)) continue;
+            Properties index = this.readIndex(name.substring(0, name.length() - INDEX_SUFFIX.length()));
+            if(index == null || !new File(directory, index.getProperty("content") + DATA_SUFFIX).isFile()) file.delete();
+        }
+    }
+
+    /**
+     * 图片数据格式：魔数、宽度、高度、是否有透明通道，之后是压缩后的像素，
+     * 有透明通道时每个像素4字节ARGB，否则3字节RGB。
+     */
+    private static void writeImage(BufferedImage image, OutputStream stream) throws IOException {
+        int width = image.getWidth(), height = image.getHeight();
+        boolean alpha = image.getColorModel().hasAlpha();
+        DataOutputStream output = new DataOutputStream(stream);
+        output.writeInt(MAGIC);
+        output.writeInt(width);
+        output.writeInt(height);
+        output.writeBoolean(alpha);
+        output.flush();
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            DeflaterOutputStream deflate = new DeflaterOutputStream(stream, deflater, 65536);
+            int[] row = new int[width];
+            byte[] bytes = new byte[width * (alpha ? 4 : 3)];
+            for (int y = 0; y < height; y++){
+                image.getRGB(0, y, width, 1, row, 0, width);
+                for (int x = 0, i = 0; x < width; x++){
+                    int pixel = row[x];
+                    if(alpha) bytes[i++] = (byte) (pixel >>> 24);
+                    bytes[i++] = (byte) (pixel >> 16);
+                    bytes[i++] = (byte) (pixel >> 8);
+                    bytes[i++] = (byte) pixel;
+                }
+                deflate.write(bytes);
+            }
+            deflate.finish();
+        }finally {
+            deflater.end();
+        }
+    }
+
+    private static BufferedImage readImage(File file){
+        if(!file.isFile()) return null;
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))){
+            if(input.readInt() != MAGIC) return null;
+            int width = input.readInt(), height = input.readInt();
+            boolean alpha = input.readBoolean();
+            //损坏或者被篡改的文件可能记录了非常大的尺寸，分配内存前先检查
+            long size = (long) width * height * (alpha ? 4 : 3);
+            if(width <= 0 || height <= 0 || (long) width * height > MAX_PIXELS
+                    || size > (file.length() - HEADER_LENGTH) * MAX_DEFLATE_RATIO) return null;
+            BufferedImage image = new BufferedImage(width, height, alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+            int[] pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+            Inflater inflater = new Inflater();
+            try {
+                DataInputStream inflate = new DataInputStream(new InflaterInputStream(input, inflater, 65536));
+                byte[] bytes = new byte[width * (alpha ? 4 : 3)];
+                for (int y = 0, p = 0; y < height; y++){
+                    inflate.readFully(bytes);
+                    for (int i = 0; i < bytes.length; p++){
+                        int a = alpha ? bytes[i++] & 0xff : 0xff;
+                        pixels[p] = a << 24 | (bytes[i++] & 0xff) << 16 | (bytes[i++] & 0xff) << 8 | (bytes[i++] & 0xff);
+                    }
+                }
+            }finally {
+                inflater.end();
+            }
+            return image;
+        }catch (IOException | RuntimeException e){
+            return null;
+        }
+    }
+
+    private static String digest(byte[] bytes){
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-1").digest(bytes);
+            StringBuilder builder = new StringBuilder(hash.length * 2);
+            for (byte b : hash) builder.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+            return builder.toString();
+        }catch (NoSuchAlgorithmException e){
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private interface Content{
+        void write(OutputStream output) throws IOException;
+    }
+}
@@ -0,0 +1,233 @@
+package dandelion.ui.image;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.*;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * 图集，将大量小图片合并到少数几张大图中，每张小图片在图集中对应一个区域。
+ * 组件只需要引用图集中的区域就可以显示图片，同一帧中绘制的大量图标都来自
+ * 同一张图片，减少了每张图片单独占用的内存和绘制时切换图片的开销。
+ *
+ * <p>
+ * 图片按行排列：每一行的高度由这一行第一张图片决定，放不下时换到新的一行，
+ * 当前页放不下时创建新的一页。一次添加多张图片时会先按高度排序，排列得更紧凑。
+ * 图片之间留有1像素的透明间隔，缩放绘制时不会采样到相邻的图片。
+ *
+ * @author Ketuer
+ * @since 1.2
+ */
+public final class ImageAtlas {
+    private static final int PADDING = 1;
+
+    private final int pageSize;
+    private final List<BufferedImage> pages = new ArrayList<>();
+    private final Map<String, Region> regions = new HashMap<>();
+    private final List<Shelf> shelves = new ArrayList<>();
+    private BufferedImage current;
+    private int shelfBottom;
+
+    public ImageAtlas(){
+        this(1024);
+    }
+
+    /**
+     * 创建图集
+     * @param pageSize 每一页的宽度和高度（像素），比这个更大的图片会单独占用一页
+     */
+    public ImageAtlas(int pageSize){
+        if(pageSize <= 0) throw new IllegalArgumentException("图集大小必须大于0！");
+        this.pageSize = pageSize;
+    }
+
+    /**
+     * 将图片添加到图集中，之后不再需要保留原图片
+     * @param name 名称，已经存在同名区域时会被替换
+     * @param image 已经加载完成的图片
+     * @return 图片在图集中的区域
+     */
+    public synchronized Region add(String name, Image image){
+        int width = image.getWidth(null), height = image.getHeight(null);
+        if(width <= 0 || height <= 0) throw new IllegalArgumentException("图片 "+name+" 还没有加载完成！");
+        Region region = this.allocate(name, width, height);
+        Graphics2D g2d = region.page.createGraphics();
+        try {
+            g2d.setComposite(AlphaComposite.Src);
+            g2d.drawImage(image, region.x, region.y, null);
+        }finally {
+            g2d.dispose();
+        }
+        regions.put(name, region);
+        return region;
+    }
+
+    /**
+     * 从指定路径加载图片并添加到图集中，以路径作为区域的名称
+     * @param context 加载包内资源时使用的类
+     * @param path 路径
+     * @param type 路径类型，与 {@link ImageLoader} 相同
+     * @return 图片在图集中的区域
+     * @throws IOException 图片无法加载
+     */
+    public Region add(Class<?> context, String path, int type) throws IOException {
+        return this.add(path, ImageLoader.loadNow(context, path, type));
+    }
+
+    /**
+     * 批量加载图片并添加到图集中，以路径作为区域的名称。所有图片在后台
+     * 线程池中同时解码，全部完成后按高度从高到低排列，适合在启动时一次性
+     * 构建整套图标。
+     * @param context 加载包内资源时使用的类
+     * @param type 路径类型，与 {@link ImageLoader} 相同
+     * @param paths 路径
+     * @throws IOException 任意一张图片无法加载
+     */
+    public void addAll(Class<?> context, int type, String... paths) throws IOException {
+        List<CompletableFuture<BufferedImage>> futures = new ArrayList<>(paths.length);
+        for (String path : paths) futures.add(ImageLoader.load(context, path, type));
+        Map<String, Image> images = new LinkedHashMap<>();
+        try {
+            for (int i = 0; i < paths.length; i++) images.put(paths[i], futures.get(i).join());
+        }catch (CompletionException e){
+            if(e.getCause() instanceof IOException) throw (IOException) e.getCause();
+            throw e;
+        }
+        this.addAll(images);
+    }
+
+    /**
+     * 批量添加图片，按高度从高到低排列
+     * @param images 名称和图片
+     */
+    public synchronized void addAll(Map<String, ? extends Image> images){
+        List<Map.Entry<String, ? extends Image>> entries = new ArrayList<>(images.entrySet());
+        entries.sort(Comparator.comparingInt((Map.Entry<String, ? extends Image> e) -> e.getValue().getHeight(null)).reversed());
+        for (Map.Entry<String, ? extends Image> entry : entries) this.add(entry.getKey(), entry.getValue());
+    }
+
+    /**
+     * 获取图集中的区域
+     * @param name 名称
+     * @return 区域，不存在时为null
+     */
+    public synchronized Region getRegion(String name){
+        return regions.get(name);
+    }
+
+    public synchronized int getPageCount(){
+        return pages.size();
+    }
+
+    public synchronized BufferedImage getPage(int index){
+        return pages.get(index);
+    }
+
+    private Region allocate(String name, int width, int height){
+        int w = width + PADDING, h = height + PADDING;
+        if(w > pageSize || h > pageSize){
+            BufferedImage page = this.createPage(width, height);
+            return new Region(name, page, 0, 0, width, height);
+        }
+        if(current == null) this.newPage();
+        BufferedImage page = current;
+        for (Shelf shelf : shelves){
+            if(shelf.height >= h && shelf.x + w <= pageSize){
+                Region region = new Region(name, page, shelf.x, shelf.y, width, height);
+                shelf.x += w;
+                return region;
+            }
+        }
+        if(shelfBottom + h > pageSize){
+            page = this.newPage();
+        }
+        Shelf shelf = new Shelf(shelfBottom, h);
+        shelves.add(shelf);
+        shelfBottom += h;
+        shelf.x = w;
+        return new Region(name, page, 0, shelf.y, width, height);
+    }
+
+    private BufferedImage newPage(){
+        shelves.clear();
+        shelfBottom = 0;
+        current = this.createPage(pageSize, pageSize);
+        return current;
+    }
+
+    private BufferedImage createPage(int width, int height){
+        BufferedImage page = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        pages.add(page);
+        return page;
+    }
+
+    private static class Shelf{
+        final int y, height;
+        int x;
+
+        Shelf(int y, int height){
+            this.y = y;
+            this.height = height;
+        }
+    }
+
+    /**
+     * 图集中的一个区域，可以直接交给 DImage 按u/v裁剪绘制，也可以通过
+     * {@link #getImage()} 获取共享像素数据的子图片。
+     */
+    public static final class Region{
+        private final String name;
+        private final BufferedImage page;
+        private final int x, y, width, height;
+        private BufferedImage image;
+
+        private Region(String name, BufferedImage page, int x, int y, int width, int height){
+            this.name = name;
+            this.page = page;
+            this.x = x;
+            this.y = y;
+            this.width = width;
+            this.height = height;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * 区域所在的整页图片
+         * @return 图片
+         */
+        public BufferedImage getPage() {
+            return page;
+        }
+
+        public int getX() {
+            return x;
+        }
+
+        public int getY() {
+            return y;
+        }
+
+        public int getWidth() {
+            return width;
+        }
+
+        public int getHeight() {
+            return height;
+        }
+
+        /**
+         * 获取区域对应的子图片，与整页图片共享像素数据，不会复制
+         * @return 子图片
+         */
+        public synchronized BufferedImage getImage() {
+            if(image == null) image = page.getSubimage(x, y, width, height);
+            return image;
+        }
+    }
+}
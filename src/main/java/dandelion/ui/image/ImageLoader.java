@@ -0,0 +1,366 @@
+package dandelion.ui.image;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.net.URL;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 图片加载服务，所有图片都在后台的有限线程池中解码，不会阻塞调用的线程。
+ * 同一张图片同时被多次请求时只会解码一次，解码后的图片会放入缓存：
+ * 最近使用的图片在内存预算内被强引用保存，超出预算后降级为软引用，
+ * 内存紧张时交给垃圾回收器释放。缓存的图片会被多个组件共用，请不要
+ * 直接修改加载得到的图片。
+ *
+ * <p>
+ * 支持三种来源：网络链接、包内资源以及本地文件。
+ *
+ * @author Ketuer
+ * @since 1.2
+ */
+public final class ImageLoader {
+
+    public static final int NETWORK = 0;
+    public static final int JAR = 1;
+    public static final int FILE = 2;
+
+    private static final ExecutorService executor;
+    private static final Map<String, CompletableFuture<BufferedImage>> loading = new ConcurrentHashMap<>();
+    private static final Map<String, BufferedImage> recent = new LinkedHashMap<>(16, 0.75f, true);
+    private static final Map<String, Entry> released = new ConcurrentHashMap<>();
+    private static final ReferenceQueue<BufferedImage> queue = new ReferenceQueue<>();
+    private static final LongAdder hits = new LongAdder();
+    private static final LongAdder misses = new LongAdder();
+    private static long memoryBudget = 64L * 1024 * 1024;
+    private static long memoryUsage = 0;
+    private static volatile DiskImageCache diskCache;
+    private static File diskCacheDirectory = new File(System.getProperty("user.home"), ".dandelion" + File.separator + "image-cache");
+    private static long diskCacheSize = 64L * 1024 * 1024;
+
+    static {
+        int threads = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors()));
+        AtomicInteger counter = new AtomicInteger();
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), r -> {
+            Thread thread = new Thread(r, "dandelion-image-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        pool.allowCoreThreadTimeOut(true);
+        executor = pool;
+        resetDiskCache();
+    }
+
+    private ImageLoader(){ }
+
+    /**
+     * 异步加载图片，包内资源相对于ImageLoader所在的包查找。
+     * @param path 路径
+     * @param type 路径类型
+     * @return 图片加载完成时完成，加载失败时以IOException异常完成
+     */
+    public static CompletableFuture<BufferedImage> load(String path, int type){
+        return load(ImageLoader.class, path, type);
+    }
+
+    /**
+     * 异步加载图片。
+     * @param context 查找包内资源时使用的类，与Class.getResource规则相同
+     * @param path 路径
+     * @param type 路径类型
+     * @return 图片加载完成时完成，加载失败时以IOException异常完成
+     */
+    public static CompletableFuture<BufferedImage> load(Class<?> context, String path, int type){
+        return load(context, path, type, 0, 0);
+    }
+
+    /**
+     * 异步加载图片并缩放到指定大小。解码时会按比例跳过源图片的部分像素，
+     * 只读取略大于目标大小的图片，再高质量缩小到目标大小，大图不会以
+     * 原始分辨率占用内存。每个目标大小的图片会被单独缓存。
+     * @param context 查找包内资源时使用的类，与Class.getResource规则相同
+     * @param path 路径
+     * @param type 路径类型
+     * @param width 目标宽度，为0时保持原始大小
+     * @param height 目标高度，为0时保持原始大小
+     * @return 图片加载完成时完成，加载失败时以IOException异常完成
+     *
+     * @see ImageScaler
+     */
+    public static CompletableFuture<BufferedImage> load(Class<?> context, String path, int type, int width, int height){
+        if(width < 0 || height < 0 || (width == 0) != (height == 0))
+            throw new IllegalArgumentException("目标宽度和高度必须同时大于0或者同时为0！");
+        URL url;
+        try {
+            url = resolve(context, path, type);
+        }catch (IOException e){
+            CompletableFuture<BufferedImage> future = new CompletableFuture<>();
+            future.completeExceptionally(e);
+            return future;
+        }
+        String key = width == 0 ? url.toExternalForm() : url.toExternalForm() + "@" + width + "x" + height;
+        BufferedImage image = getCached(key);
+        if(image != null){
+            hits.increment();
+            return CompletableFuture.completedFuture(image);
+        }
+        CompletableFuture<BufferedImage> future = new CompletableFuture<>();
+        CompletableFuture<BufferedImage> existing = loading.putIfAbsent(key, future);
+        if(existing != null) return existing;
+        misses.increment();
+        executor.execute(() -> {
+            try {
+                BufferedImage result = width == 0 ? decode(url) : decode(url, width, height);
+                put(key, result);
+                loading.remove(key, future);
+                future.complete(result);
+            }catch (Throwable e){
+                loading.remove(key, future);
+                future.completeExceptionally(e);
+            }
+        });
+        return future;
+    }
+
+    /**
+     * 同步加载图片，已经缓存或者正在加载的图片不会被重复解码。
+     * @param context 查找包内资源时使用的类
+     * @param path 路径
+     * @param type 路径类型
+     * @return 图片
+     * @throws IOException 无法读取或解码图片
+     */
+    public static BufferedImage loadNow(Class<?> context, String path, int type) throws IOException {
+        return loadNow(context, path, type, 0, 0);
+    }
+
+    /**
+     * 同步加载图片并缩放到指定大小，已经缓存或者正在加载的图片不会被重复解码。
+     * @param context 查找包内资源时使用的类
+     * @param path 路径
+     * @param type 路径类型
+     * @param width 目标宽度，为0时保持原始大小
+     * @param height 目标高度，为0时保持原始大小
+     * @return 图片
+     * @throws IOException 无法读取或解码图片
+     */
+    public static BufferedImage loadNow(Class<?> context, String path, int type, int width, int height) throws IOException {
+        try {
+            return load(context, path, type, width, height).join();
+        }catch (CompletionException e){
+            Throwable cause = e.getCause();
+            if(cause instanceof IOException) throw (IOException) cause;
+            if(cause instanceof RuntimeException) throw (RuntimeException) cause;
+            throw new IOException(cause);
+        }
+    }
+
+    /**
+     * 设置强引用缓存的内存预算，超出后最久未使用的图片会降级为软引用。
+     * @param bytes 字节数
+     */
+    public static void setMemoryBudget(long bytes){
+        if(bytes < 0) throw new IllegalArgumentException("内存预算不能为负数！");
+        synchronized (recent){
+            memoryBudget = bytes;
+            trim();
+        }
+    }
+
+    /**
+     * 设置网络图片的磁盘缓存目录，默认为用户目录下的.dandelion/image-cache。
+     * 目录不存在时会被创建，并且只有当前用户可以访问，请不要使用多个用户
+     * 共用的目录，否则其他用户可以读取或者篡改缓存的图片。
+     * @param directory 目录，为null时不使用磁盘缓存
+     */
+    public static synchronized void setDiskCacheDirectory(File directory){
+        diskCacheDirectory = directory;
+        resetDiskCache();
+    }
+
+    /**
+     * 设置磁盘缓存的大小，超出时淘汰最久未使用的图片。
+     * @param bytes 字节数
+     */
+    public static synchronized void setDiskCacheSize(long bytes){
+        if(bytes < 0) throw new IllegalArgumentException("缓存大小不能为负数！");
+        diskCacheSize = bytes;
+        resetDiskCache();
+    }
+
+    private static void resetDiskCache(){
+        diskCache = diskCacheDirectory == null ? null
+                : new DiskImageCache(diskCacheDirectory, diskCacheSize, executor, ImageLoader::evict);
+    }
+
+    /**
+     * 磁盘缓存中的图片在服务器上有更新时，移除内存中所有由它得到的图片，
+     * 之后的加载会使用新的图片。
+     */
+    private static void evict(URL url){
+        String key = url.toExternalForm();
+        synchronized (recent){
+            Iterator<Map.Entry<String, BufferedImage>> iterator = recent.entrySet().iterator();
+            while (iterator.hasNext()){
+                Map.Entry<String, BufferedImage> entry = iterator.next();
+                if(entry.getKey().equals(key) || entry.getKey().startsWith(key + "@")){
+                    memoryUsage -= sizeOf(entry.getValue());
+                    iterator.remove();
+                }
+            }
+        }
+        released.keySet().removeIf(k -> k.equals(key) || k.startsWith(key + "@"));
+    }
+
+    public static long getMemoryUsage(){
+        synchronized (recent){
+            return memoryUsage;
+        }
+    }
+
+    public static long getHitCount(){
+        return hits.sum();
+    }
+
+    public static long getMissCount(){
+        return misses.sum();
+    }
+
+    /**
+     * 清空所有已缓存的图片，正在加载的图片不受影响。
+     */
+    public static void clear(){
+        synchronized (recent){
+            recent.clear();
+            memoryUsage = 0;
+        }
+        released.clear();
+    }
+
+    /**
+     * 图片处理共用的后台线程池
+     */
+    static Executor executor(){
+        return executor;
+    }
+
+    private static URL resolve(Class<?> context, String path, int type) throws IOException {
+        switch (type){
+            case NETWORK:
+                return new URL(path);
+            case JAR:
+                URL url = context.getResource(path);
+                if(url == null) throw new IOException("无法读取resource下的资源 "+path+"，请确定文件是否存在！");
+                return url;
+            case FILE:
+                return new File(path).getAbsoluteFile().toURI().toURL();
+            default:
+                throw new UnsupportedOperationException("错误的路径类型！");
+        }
+    }
+
+    private static BufferedImage decode(URL url) throws IOException {
+        DiskImageCache diskCache = ImageLoader.diskCache;
+        if(diskCache != null && isRemote(url)) return diskCache.read(url);
+        BufferedImage image = ImageIO.read(url);
+        if(image == null) throw new IOException("无法解码图片 "+url+"，不支持此图片格式！");
+        return image;
+    }
+
+    /**
+     * 按目标大小解码，跳过的像素数量保证解码结果至少是目标大小的两倍，
+     * 剩余的缩小交给高质量缩放完成。网络图片使用磁盘缓存中解码好的像素。
+     */
+    private static BufferedImage decode(URL url, int width, int height) throws IOException {
+        if(diskCache != null && isRemote(url)){
+            BufferedImage image = decode(url);
+            if(image.getWidth() == width && image.getHeight() == height) return image;
+            return ImageScaler.scale(image, width, height);
+        }
+        try (InputStream stream = url.openStream(); ImageInputStream input = ImageIO.createImageInputStream(stream)){
+            Iterator<ImageReader> readers = input == null ? null : ImageIO.getImageReaders(input);
+            if(readers == null || !readers.hasNext()) throw new IOException("无法解码图片 "+url+"，不支持此图片格式！");
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                int step = Math.min(reader.getWidth(0) / (width * 2), reader.getHeight(0) / (height * 2));
+                ImageReadParam param = reader.getDefaultReadParam();
+                if(step > 1) param.setSourceSubsampling(step, step, 0, 0);
+                BufferedImage image = reader.read(0, param);
+                if(image.getWidth() == width && image.getHeight() == height) return image;
+                return ImageScaler.scale(image, width, height);
+            }finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private static boolean isRemote(URL url){
+        return "http".equals(url.getProtocol()) || "https".equals(url.getProtocol());
+    }
+
+    private static BufferedImage getCached(String key){
+        synchronized (recent){
+            BufferedImage image = recent.get(key);
+            if(image != null) return image;
+        }
+        Entry entry = released.get(key);
+        BufferedImage image = entry == null ? null : entry.get();
+        if(image != null) put(key, image);
+        return image;
+    }
+
+    private static void put(String key, BufferedImage image){
+        expunge();
+        released.remove(key);
+        synchronized (recent){
+            BufferedImage previous = recent.put(key, image);
+            if(previous != null) memoryUsage -= sizeOf(previous);
+            memoryUsage += sizeOf(image);
+            trim();
+        }
+    }
+
+    private static void trim(){
+        Iterator<Map.Entry<String, BufferedImage>> iterator = recent.entrySet().iterator();
+        while (memoryUsage > memoryBudget && iterator.hasNext()){
+            Map.Entry<String, BufferedImage> eldest = iterator.next();
+            memoryUsage -= sizeOf(eldest.getValue());
+            released.put(eldest.getKey(), new Entry(eldest.getKey(), eldest.getValue()));
+            iterator.remove();
+        }
+    }
+
+    private static void expunge(){
+        Entry entry;
+        while ((entry = (Entry) queue.poll()) != null){
+            released.remove(entry.key, entry);
+        }
+    }
+
+    private static long sizeOf(BufferedImage image){
+        return (long) image.getWidth() * image.getHeight() * 4;
+    }
+
+    private static final class Entry extends SoftReference<BufferedImage>{
+        private final String key;
+
+        private Entry(String key, BufferedImage image){
+            super(image, queue);
+            this.key = key;
+        }
+    }
+}
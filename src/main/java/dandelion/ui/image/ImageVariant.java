@@ -0,0 +1,137 @@
+package dandelion.ui.image;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.awt.image.RescaleOp;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 从一张图片派生出的变体，例如深色模式下反转亮度的图标，或者禁用状态下
+ * 的灰色图标。只需要加载一份原图片，其余的变体在用到时再生成。
+ *
+ * <p>
+ * 变体之间可以通过equals比较，参数相同的变体相等，可以作为缓存的键。
+ *
+ * @author Ketuer
+ * @since 1.2
+ */
+public final class ImageVariant {
+    private static final int TINT = 0, INVERT = 1, GRAYSCALE = 2, OPACITY = 3;
+    private static final ImageVariant INVERT_LUMINANCE = new ImageVariant(INVERT, 0);
+    private static final ImageVariant GRAY = new ImageVariant(GRAYSCALE, 0);
+
+    private final int kind;
+    private final int value;
+
+    private ImageVariant(int kind, int value){
+        this.kind = kind;
+        this.value = value;
+    }
+
+    /**
+     * 着色，将所有不透明的像素替换为指定颜色，只保留原图片的透明度，
+     * 适合单色图标
+     * @param color 颜色
+     * @return 变体
+     */
+    public static ImageVariant tint(Color color){
+        return new ImageVariant(TINT, color.getRGB());
+    }
+
+    /**
+     * 反转亮度，保持色相不变，深色图标变为浅色图标，适合深色模式
+     * @return 变体
+     */
+    public static ImageVariant invertLuminance(){
+        return INVERT_LUMINANCE;
+    }
+
+    /**
+     * 灰度，适合禁用状态
+     * @return 变体
+     */
+    public static ImageVariant grayscale(){
+        return GRAY;
+    }
+
+    /**
+     * 调整透明度
+     * @param opacity 不透明度，0到1之间
+     * @return 变体
+     */
+    public static ImageVariant opacity(float opacity){
+        if(opacity < 0 || opacity > 1) throw new IllegalArgumentException("不透明度必须在0到1之间！");
+        return new ImageVariant(OPACITY, Float.floatToIntBits(opacity));
+    }
+
+    /**
+     * 生成变体图片，不会修改原图片
+     * @param source 已经加载完成的原图片
+     * @return 新图片
+     */
+    public BufferedImage apply(Image source){
+        int width = source.getWidth(null), height = source.getHeight(null);
+        if(width <= 0 || height <= 0) throw new IllegalArgumentException("图片还没有加载完成！");
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g2d = image.createGraphics();
+        try {
+            g2d.setComposite(AlphaComposite.Src);
+            g2d.drawImage(source, 0, 0, null);
+        }finally {
+            g2d.dispose();
+        }
+        switch (kind){
+            case TINT:
+                Color color = new Color(value, true);
+                return new RescaleOp(new float[]{0, 0, 0, color.getAlpha() / 255f},
+                        new float[]{color.getRed(), color.getGreen(), color.getBlue(), 0}, null).filter(image, null);
+            case OPACITY:
+                return new RescaleOp(new float[]{1, 1, 1, Float.intBitsToFloat(value)},
+                        new float[]{0, 0, 0, 0}, null).filter(image, null);
+            default:
+                int[] pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+                for (int i = 0; i < pixels.length; i++){
+                    int pixel = pixels[i];
+                    int r = (pixel >> 16) & 0xff, g = (pixel >> 8) & 0xff, b = pixel & 0xff;
+                    int luma = (r * 299 + g * 587 + b * 114) / 1000;
+                    if(kind == GRAYSCALE){
+                        r = g = b = luma;
+                    }else {
+                        int delta = 255 - 2 * luma;
+                        r = clamp(r + delta);
+                        g = clamp(g + delta);
+                        b = clamp(b + delta);
+                    }
+                    pixels[i] = (pixel & 0xff000000) | r << 16 | g << 8 | b;
+                }
+                return image;
+        }
+    }
+
+    /**
+     * 在图片加载共用的后台线程池中生成变体图片
+     * @param source 已经加载完成的原图片
+     * @return 生成完成时完成
+     */
+    public CompletableFuture<BufferedImage> applyAsync(Image source){
+        return CompletableFuture.supplyAsync(() -> this.apply(source), ImageLoader.executor());
+    }
+
+    private static int clamp(int value){
+        return value < 0 ? 0 : Math.min(value, 255);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if(this == o) return true;
+        if(!(o instanceof ImageVariant)) return false;
+        ImageVariant variant = (ImageVariant) o;
+        return kind == variant.kind && value == variant.value;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * kind + value;
+    }
+}
@@ -0,0 +1,165 @@
+package dandelion.ui.image;
+
+import java.awt.geom.Path2D;
+import java.awt.geom.Point2D;
+
+/**
+ * SVG路径数据（path元素的d属性）解析器，支持M、L、H、V、C、S、Q、T、Z
+ * 命令及其小写的相对坐标形式，不支持圆弧命令A。与SVG相同，路径必须以
+ * M或m命令开始。
+ *
+ * @author Ketuer
+ * @since 1.2
+ */
+public final class SvgPath {
+    private final String data;
+    private int index;
+
+    private SvgPath(String data){
+        this.data = data;
+    }
+
+    /**
+     * 解析路径数据
+     * @param data 路径数据，例如 "M2 2 L14 8 L2 14 Z"
+     * @return 路径
+     */
+    public static Path2D.Float parse(String data){
+        return new SvgPath(data).parse();
+    }
+
+    private Path2D.Float parse(){
+        Path2D.Float path = new Path2D.Float(Path2D.WIND_NON_ZERO);
+        float x = 0, y = 0, startX = 0, startY = 0;
+        //上一段曲线的控制点，用于S和T命令计算对称的控制点
+        float controlX = 0, controlY = 0;
+        char previous = 0;
+        char command = 0;
+        while (this.skipSeparators()){
+            char c = data.charAt(index);
+            if(Character.isLetter(c)){
+                if(previous == 0 && c != 'M' && c != 'm') throw this.error();
+                command = c;
+                index++;
+            }else if(command == 0){
+                throw this.error();
+            }else if(command == 'M'){
+                //M之后的坐标视为L
+                command = 'L';
+            }else if(command == 'm'){
+                command = 'l';
+            }else if(command == 'Z' || command == 'z'){
+                throw this.error();
+            }
+            boolean relative = Character.isLowerCase(command);
+            float ox = relative ? x : 0, oy = relative ? y : 0;
+            switch (Character.toUpperCase(command)){
+                case 'M':
+                    x = ox + this.number();
+                    y = oy + this.number();
+                    path.moveTo(x, y);
+                    startX = x;
+                    startY = y;
+                    break;
+                case 'L':
+                    x = ox + this.number();
+                    y = oy + this.number();
+                    path.lineTo(x, y);
+                    break;
+                case 'H':
+                    x = ox + this.number();
+                    path.lineTo(x, y);
+                    break;
+                case 'V':
+                    y = oy + this.number();
+                    path.lineTo(x, y);
+                    break;
+                case 'C': {
+                    float x1 = ox + this.number(), y1 = oy + this.number();
+                    controlX = ox + this.number();
+                    controlY = oy + this.number();
+                    x = ox + this.number();
+                    y = oy + this.number();
+                    path.curveTo(x1, y1, controlX, controlY, x, y);
+                    break;
+                }
+                case 'S': {
+                    Point2D.Float reflected = reflect(previous, "CS", x, y, controlX, controlY);
+                    controlX = ox + this.number();
+                    controlY = oy + this.number();
+                    x = ox + this.number();
+                    y = oy + this.number();
+                    path.curveTo(reflected.x, reflected.y, controlX, controlY, x, y);
+                    break;
+                }
+                case 'Q':
+                    controlX = ox + this.number();
+                    controlY = oy + this.number();
+                    x = ox + this.number();
+                    y = oy + this.number();
+                    path.quadTo(controlX, controlY, x, y);
+                    break;
+                case 'T': {
+                    Point2D.Float reflected = reflect(previous, "QT", x, y, controlX, controlY);
+                    controlX = reflected.x;
+                    controlY = reflected.y;
+                    x = ox + this.number();
+                    y = oy + this.number();
+                    path.quadTo(controlX, controlY, x, y);
+                    break;
+                }
+                case 'Z':
+                    path.closePath();
+                    x = startX;
+                    y = startY;
+                    break;
+                default:
+                    throw new IllegalArgumentException("不支持的路径命令 "+command+"：" + data);
+            }
+            previous = Character.toUpperCase(command);
+        }
+        return path;
+    }
+
+    /**
+     * 上一个命令是同类曲线时，以当前点为中心对称上一段的控制点，否则使用当前点
+     */
+    private static Point2D.Float reflect(char previous, String commands, float x, float y, float controlX, float controlY){
+        if(previous != 0 && commands.indexOf(previous) >= 0) return new Point2D.Float(2 * x - controlX, 2 * y - controlY);
+        return new Point2D.Float(x, y);
+    }
+
+    private boolean skipSeparators(){
+        while (index < data.length() && (Character.isWhitespace(data.charAt(index)) || data.charAt(index) == ',')) index++;
+        return index < data.length();
+    }
+
+    private float number(){
+        if(!this.skipSeparators()) throw this.error();
+        int start = index;
+        if(data.charAt(index) == '+' || data.charAt(index) == '-') index++;
+        boolean dot = false, digits = false;
+        while (index < data.length()){
+            char c = data.charAt(index);
+            if(c >= '0' && c <= '9'){
+                digits = true;
+            }else if(c == '.' && !dot){
+                dot = true;
+            }else if((c == 'e' || c == 'E') && digits){
+                index++;
+                if(index < data.length() && (data.charAt(index) == '+' || data.charAt(index) == '-')) index++;
+                while (index < data.length() && Character.isDigit(data.charAt(index))) index++;
+                break;
+            }else {
+                break;
+            }
+            index++;
+        }
+        if(!digits) throw this.error();
+        return Float.parseFloat(data.substring(start, index));
+    }
+
+    private IllegalArgumentException error(){
+        return new IllegalArgumentException("路径数据格式错误，位置 "+index+"：" + data);
+    }
+}
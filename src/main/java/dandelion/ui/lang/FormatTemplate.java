@@ -0,0 +1,120 @@
+package dandelion.ui.lang;
+
+import java.math.BigInteger;
+import java.text.DecimalFormatSymbols;
+import java.util.Arrays;
+import java.util.Formattable;
+import java.util.Locale;
+
+/**
+ * 预先解析的格式化模板，语言文件中的每一条文本只会被解析一次。模板中
+ * 只包含<code>%s</code>、<code>%d</code>、<code>%%</code>和<code>%n</code>
+ * 时直接拼接参数，其余情况（宽度、标志、参数序号等）仍然交给
+ * <code>String.format</code>处理，保证结果与之完全一致。
+ *
+ * @author Ketuer
+ * @since 1.2
+ */
+final class FormatTemplate {
+    private static volatile NumberLocale numberLocale = new NumberLocale(Locale.getDefault(Locale.Category.FORMAT));
+
+    private final String pattern;
+    private final String[] literals;
+    private final char[] conversions;
+    private final boolean complex;
+
+    FormatTemplate(String pattern){
+        this.pattern = pattern;
+        String[] literals = new String[4];
+        char[] conversions = new char[3];
+        int count = 0;
+        boolean complex = false;
+        StringBuilder literal = new StringBuilder();
+        for (int i = 0; i < pattern.length() && !complex; i++) {
+            char c = pattern.charAt(i);
+            if(c != '%'){
+                literal.append(c);
+                continue;
+            }
+            char next = i + 1 < pattern.length() ? pattern.charAt(i + 1) : 0;
+            switch (next){
+                case '%':
+                    literal.append('%');
+                    break;
+                case 'n':
+                    literal.append(System.lineSeparator());
+                    break;
+                case 's':
+                case 'd':
+                    if(count + 1 == literals.length){
+                        literals = Arrays.copyOf(literals, literals.length * 2);
+                        conversions = Arrays.copyOf(conversions, conversions.length * 2);
+                    }
+                    literals[count] = literal.toString();
+                    conversions[count++] = next;
+                    literal.setLength(0);
+                    break;
+                default:
+                    complex = true;
+            }
+            i++;
+        }
+        literals[count] = literal.toString();
+        this.complex = complex;
+        this.literals = Arrays.copyOf(literals, count + 1);
+        this.conversions = Arrays.copyOf(conversions, count);
+    }
+
+    /**
+     * 使用参数填充模板。
+     * @param params 参数
+     * @return 完整内容
+     */
+    String format(Object... params){
+        if(complex) return String.format(pattern, params);
+        if(conversions.length == 0) return literals[0];
+        if(params == null || params.length < conversions.length) return String.format(pattern, params);
+        StringBuilder builder = new StringBuilder(pattern.length() + 8 * conversions.length);
+        for (int i = 0; i < conversions.length; i++) {
+            builder.append(literals[i]);
+            Object param = params[i];
+            if(param == null){
+                builder.append("null");
+            }else if(conversions[i] == 's'){
+                if(param instanceof Formattable) return String.format(pattern, params);
+                builder.append(param);
+            }else if(param instanceof Integer || param instanceof Long
+                    || param instanceof Short || param instanceof Byte){
+                if(!asciiDigits()) return String.format(pattern, params);
+                builder.append(((Number) param).longValue());
+            }else if(param instanceof BigInteger){
+                if(!asciiDigits()) return String.format(pattern, params);
+                builder.append(param);
+            }else {
+                return String.format(pattern, params);
+            }
+        }
+        return builder.append(literals[conversions.length]).toString();
+    }
+
+    /**
+     * <code>String.format</code>会使用默认格式化区域的数字字符，
+     * 只有在其为ASCII数字时才能直接拼接。
+     */
+    private static boolean asciiDigits(){
+        Locale locale = Locale.getDefault(Locale.Category.FORMAT);
+        NumberLocale cached = numberLocale;
+        if(cached.locale != locale) numberLocale = cached = new NumberLocale(locale);
+        return cached.asciiDigits;
+    }
+
+    private static final class NumberLocale {
+        final Locale locale;
+        final boolean asciiDigits;
+
+        NumberLocale(Locale locale){
+            this.locale = locale;
+            this.asciiDigits = DecimalFormatSymbols.getInstance(locale).getZeroDigit() == '0';
+        }
+    }
+}
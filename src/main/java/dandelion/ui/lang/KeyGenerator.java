@@ -0,0 +1,125 @@
+package dandelion.ui.lang;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * 根据语言文件生成{@link TextKey}常量类的工具，在构建时运行。它会读
+ * 取目录下所有<code>language*.properties</code>文件，为出现过的每一个
+ * 键生成一个常量，例如<code>menu.file.open</code>会生成
+ * <code>MENU_FILE_OPEN</code>。
+ *
+ * <p>
+ * 可以通过exec-maven-plugin在generate-sources阶段调用：
+ * <pre>
+ * java dandelion.ui.lang.KeyGenerator src/main/resources target/generated-sources/i18n com.example.Keys
+ * </pre>
+ * 之后将生成目录添加为源码目录即可。
+ *
+ * @author Ketuer
+ * @since 1.2
+ */
+public final class KeyGenerator {
+
+    private KeyGenerator(){ }
+
+    public static void main(String[] args) throws IOException {
+        if(args.length != 3){
+            System.err.println("用法：KeyGenerator <语言文件目录> <源码输出目录> <完整类名>");
+            System.exit(1);
+        }
+        generate(new File(args[0]), new File(args[1]), args[2]);
+    }
+
+    /**
+     * 生成常量类源码。
+     * @param resources 语言文件所在目录
+     * @param output 源码输出目录
+     * @param className 完整类名
+     * @throws IOException 读取或写入失败
+     */
+    public static void generate(File resources, File output, String className) throws IOException {
+        File[] files = resources.listFiles((dir, name) -> name.startsWith("language") && name.endsWith(".properties"));
+        if(files == null || files.length == 0)
+            throw new IOException("目录 "+resources+" 下没有找到语言文件！");
+        Map<String, String> constants = new TreeMap<>();
+        Set<String> used = new HashSet<>();
+        Set<String> keys = new TreeSet<>();
+        for (File file : files) {
+            Properties properties = new Properties();
+            try (InputStream stream = Files.newInputStream(file.toPath())){
+                properties.load(stream);
+            }
+            keys.addAll(properties.stringPropertyNames());
+        }
+        for (String key : keys) {
+            String constant = constantName(key);
+            String unique = constant;
+            for (int i = 2; !used.add(unique); i++) unique = constant + "_" + i;
+            constants.put(unique, key);
+        }
+
+        int split = className.lastIndexOf('.');
+        String packageName = split > 0 ? className.substring(0, split) : null;
+        String simpleName = className.substring(split + 1);
+        File target = new File(output, className.replace('.', File.separatorChar) + ".java");
+        if(!target.getParentFile().isDirectory() && !target.getParentFile().mkdirs())
+            throw new IOException("无法创建目录 "+target.getParentFile());
+        try (Writer writer = Files.newBufferedWriter(target.toPath(), StandardCharsets.UTF_8)){
+            if(packageName != null) writer.write("package " + packageName + ";\n\n");
+            writer.write("import dandelion.ui.lang.TextKey;\n\n");
+            writer.write("/**\n * 由KeyGenerator根据语言文件自动生成，请不要手动修改。\n */\n");
+            writer.write("public final class " + simpleName + " {\n");
+            for (Map.Entry<String, String> entry : constants.entrySet()) {
+                writer.write("    public static final TextKey " + entry.getKey()
+                        + " = TextKey.of(\"" + escape(entry.getValue()) + "\");\n");
+            }
+            writer.write("\n    private " + simpleName + "(){ }\n}\n");
+        }
+    }
+
+    private static String constantName(String key){
+        StringBuilder builder = new StringBuilder(key.length() + 1);
+        for (int i = 0; i < key.length(); i++) {
+            char c = key.charAt(i);
+            if(Character.isLetterOrDigit(c) && c < 128){
+                if(i > 0 && Character.isUpperCase(c) && Character.isLowerCase(key.charAt(i - 1))) builder.append('_');
+                builder.append(Character.toUpperCase(c));
+            }else if(builder.length() == 0 || builder.charAt(builder.length() - 1) != '_'){
+                builder.append('_');
+            }
+        }
+        if(builder.length() == 0 || Character.isDigit(builder.charAt(0))) builder.insert(0, '_');
+        return builder.toString();
+    }
+
+    private static String escape(String key){
+        StringBuilder builder = new StringBuilder(key.length());
+        for (int i = 0; i < key.length(); i++) {
+            char c = key.charAt(i);
+            if(c == '"' || c == '\\'){
+                builder.append('\\').append(c);
+            }else if(c < 0x20){
+                //unicode转义在词法分析之前就会被替换，换行等控制字符必须使用普通的转义序列
+                int special = "\n\r\t\b\f".indexOf(c);
+                if(special >= 0) builder.append('\\').append("nrtbf".charAt(special));
+                else builder.append(String.format("\\%03o", (int) c));
+            }else if(c > 0x7e){
+                builder.append(String.format("\\u%04x", (int) c));
+            }else {
+                builder.append(c);
+            }
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,207 @@
+package dandelion.ui.lang;
+
+import dandelion.ui.util.GenerationCache;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Map;
+import java.util.MissingResourceException;
+import java.util.ResourceBundle;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 单个语言的文本目录，每种语言只会加载一次语言文件，其中的文本在
+ * 第一次使用时被解析为格式化模板并缓存，之后的查找只需要一次哈希
+ * 查找和参数填充。
+ *
+ * <p>
+ * 组件中大部分的动态文本（表格单元格、树节点等）并不是语言文件中的
+ * 键，这些已知不存在的键会被记录在一个有上限的缓存中，再次查找时直
+ * 接返回原字符串。
+ *
+ * @author Ketuer
+ * @since 1.2
+ */
+final class LanguageCatalog {
+    private static final Map<String, LanguageCatalog> catalogs = new ConcurrentHashMap<>();
+    private static final LongAdder missingHits = new LongAdder();
+    private static final LongAdder missingMisses = new LongAdder();
+    private static volatile int missingCapacity = 4096;
+    private static volatile int version;
+    private static final FormatTemplate MISSING = new FormatTemplate("");
+    private static volatile File packDirectory;
+
+    private final Locale locale;
+    private final LanguagePack pack;
+    private final ResourceBundle bundle;
+    private final Map<String, FormatTemplate> templates = new ConcurrentHashMap<>();
+    private final GenerationCache<String, Boolean> missing = new GenerationCache<>(missingCapacity);
+    private volatile FormatTemplate[] table = new FormatTemplate[0];
+
+    private LanguageCatalog(String language){
+        this.locale = new Locale(language);
+        this.pack = openPack(language);
+        ResourceBundle bundle = null;
+        if(pack == null){
+            try {
+                bundle = ResourceBundle.getBundle("language", locale);
+            }catch (MissingResourceException ignored){ }
+        }
+        this.bundle = bundle;
+    }
+
+    /**
+     * 设置了语言包目录时，优先使用对应语言的语言包，其次是默认语言包，
+     * 都不存在时才读取语言文件。
+     */
+    private static LanguagePack openPack(String language){
+        File directory = packDirectory;
+        if(directory == null) return null;
+        File file = new File(directory, "language_" + language + LanguagePack.SUFFIX);
+        if(!file.isFile()) file = new File(directory, "language" + LanguagePack.SUFFIX);
+        if(!file.isFile()) return null;
+        try {
+            return LanguagePack.open(file);
+        }catch (IOException e){
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * 获取对应语言的文本目录，不存在时进行加载。
+     * @param language 语言
+     * @return 文本目录
+     */
+    static LanguageCatalog of(String language){
+        LanguageCatalog catalog = catalogs.get(language);
+        if(catalog == null) catalog = catalogs.computeIfAbsent(language, LanguageCatalog::new);
+        return catalog;
+    }
+
+    /**
+     * 设置语言包所在的目录，并清空已加载的文本目录，使新的目录立即生效。
+     * @param directory 语言包目录，为null时使用语言文件
+     */
+    static void setPackDirectory(File directory){
+        packDirectory = directory;
+        clear();
+    }
+
+    /**
+     * 移除某种语言的文本目录，释放其占用的内存，再次使用时会重新加载。
+     * @param language 语言
+     */
+    static void evict(String language){
+        catalogs.remove(language);
+    }
+
+    /**
+     * 清空所有已加载的文本目录，下次使用时会重新读取语言文件。
+     */
+    static synchronized void clear(){
+        catalogs.clear();
+        ResourceBundle.clearCache();
+        version++;
+    }
+
+    /**
+     * 文本目录的版本号，每次清空目录都会增加，用于让已缓存的解析结果失效。
+     * @return 版本号
+     */
+    static int version(){
+        return version;
+    }
+
+    static long getMissingHits(){
+        return missingHits.sum();
+    }
+
+    static long getMissingMisses(){
+        return missingMisses.sum();
+    }
+
+    static void setMissingCapacity(int capacity){
+        if(capacity < 1) throw new IllegalArgumentException("缓存大小必须大于0！");
+        missingCapacity = capacity;
+        for (LanguageCatalog catalog : catalogs.values()) catalog.missing.setCapacity(capacity);
+    }
+
+    static int getMissingCapacity(){
+        return missingCapacity;
+    }
+
+    Locale getLocale() {
+        return locale;
+    }
+
+    /**
+     * 根据本语言的文本对字符串进行格式化，没有对应文本时返回原字符串。
+     * @param text 待格式化字符串
+     * @param params 参数
+     * @return 完整内容
+     */
+    String format(String text, Object... params){
+        FormatTemplate template = templates.get(text);
+        if(template == null){
+            if(isKnownMissing(text)) return text;
+            String value = this.lookup(text);
+            if(value == null){
+                this.markMissing(text);
+                return text;
+            }
+            template = new FormatTemplate(value);
+            templates.put(text, template);
+        }
+        return template.format(params);
+    }
+
+    /**
+     * 使用键的编号直接在文本表中查找，第一次查找某个键时才会去读取语言文件。
+     * @param key 键
+     * @param params 参数
+     * @return 完整内容
+     */
+    String format(TextKey key, Object... params){
+        FormatTemplate[] table = this.table;
+        int id = key.getId();
+        FormatTemplate template = id < table.length ? table[id] : null;
+        if(template == null) template = this.load(key);
+        return template == MISSING ? key.getName() : template.format(params);
+    }
+
+    private synchronized FormatTemplate load(TextKey key){
+        FormatTemplate[] table = this.table;
+        if(key.getId() >= table.length) this.table = table = Arrays.copyOf(table, Math.max(TextKey.count(), key.getId() + 1));
+        FormatTemplate template = table[key.getId()];
+        if(template == null){
+            String value = this.lookup(key.getName());
+            template = value != null ? new FormatTemplate(value) : MISSING;
+            table[key.getId()] = template;
+        }
+        return template;
+    }
+
+    private String lookup(String key){
+        if(pack != null) return pack.get(key);
+        if(bundle != null && bundle.containsKey(key)) return bundle.getString(key);
+        return null;
+    }
+
+    private boolean isKnownMissing(String text){
+        if(missing.get(text) == null) return false;
+        missingHits.increment();
+        return true;
+    }
+
+    /**
+     * 记录不存在的键，缓存的淘汰方式见 {@link GenerationCache}。
+     */
+    private void markMissing(String text){
+        missingMisses.increment();
+        missing.put(text, Boolean.TRUE);
+    }
+}
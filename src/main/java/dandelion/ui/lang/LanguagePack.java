@@ -0,0 +1,226 @@
+package dandelion.ui.lang;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+
+/**
+ * 二进制语言包，由构建时的转换步骤根据<code>language*.properties</code>
+ * 生成，运行时通过内存映射读取，不需要解析文本文件，文本内容也不会占用
+ * 堆内存，只有实际访问过的部分才会被操作系统载入。
+ *
+ * <p>
+ * 文件格式（大端序）：
+ * <pre>
+ * int    魔数 0x444C5031
+ * int    条目数量 n
+ * int    哈希槽数量 m（2的幂）
+ * int[m] 哈希槽，保存条目序号+1，0表示空
+ * 条目[n] 每项5个int：键的hashCode、键偏移、键长度、值偏移、值长度
+ * byte[] UTF-8编码的字符串数据，偏移从此处开始计算
+ * </pre>
+ *
+ * <p>
+ * 可以通过<code>java dandelion.ui.lang.LanguagePack &lt;语言文件目录&gt; &lt;输出目录&gt;</code>
+ * 进行转换，每种语言的包中都会合并<code>language.properties</code>中的默认文本。
+ *
+ * @author Ketuer
+ * @since 1.2
+ */
+public final class LanguagePack {
+    public static final String SUFFIX = ".dlp";
+    private static final int MAGIC = 0x444C5031;
+    private static final int HEADER = 12;
+    private static final int ENTRY = 20;
+
+    private final ByteBuffer buffer;
+    private final int count;
+    private final int mask;
+    private final int entries;
+    private final int data;
+
+    private LanguagePack(ByteBuffer buffer) throws IOException {
+        if(buffer.limit() < HEADER || buffer.getInt(0) != MAGIC)
+            throw new IOException("不是有效的语言包文件！");
+        this.buffer = buffer;
+        this.count = buffer.getInt(4);
+        int slots = buffer.getInt(8);
+        //哈希表至少要有一个空槽，否则查找不存在的键时无法结束
+        if(slots <= 0 || Integer.bitCount(slots) != 1 || count < 0 || count >= slots)
+            throw new IOException("语言包文件已损坏！");
+        long entries = HEADER + 4L * slots, data = entries + (long) ENTRY * count;
+        if(data > buffer.limit()) throw new IOException("语言包文件已损坏！");
+        this.mask = slots - 1;
+        this.entries = (int) entries;
+        this.data = (int) data;
+        this.validate();
+    }
+
+    /**
+     * 检查哈希槽和条目中的序号、偏移是否都在文件范围内，
+     * 之后的查找就不需要再做边界检查
+     */
+    private void validate() throws IOException {
+        for (int slot = 0; slot <= mask; slot++) {
+            int index = buffer.getInt(HEADER + 4 * slot);
+            if(index < 0 || index > count) throw new IOException("语言包文件已损坏！");
+        }
+        long strings = buffer.limit() - data;
+        for (int i = 0; i < count; i++) {
+            int entry = entries + ENTRY * i;
+            if(!inside(buffer.getInt(entry + 4), buffer.getInt(entry + 8), strings)
+                    || !inside(buffer.getInt(entry + 12), buffer.getInt(entry + 16), strings))
+                throw new IOException("语言包文件已损坏！");
+        }
+    }
+
+    private static boolean inside(int offset, int length, long limit){
+        return offset >= 0 && length >= 0 && (long) offset + length <= limit;
+    }
+
+    /**
+     * 以只读方式映射语言包文件。
+     * @param file 语言包文件
+     * @return 语言包
+     * @throws IOException 文件不存在或格式错误
+     */
+    public static LanguagePack open(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)){
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new LanguagePack(buffer);
+        }
+    }
+
+    public int size() {
+        return count;
+    }
+
+    /**
+     * 查找键对应的文本。
+     * @param key 键
+     * @return 文本，不存在时返回null
+     */
+    public String get(String key){
+        int hash = key.hashCode();
+        byte[] bytes = null;
+        for (int slot = mix(hash) & mask, probes = 0; probes <= mask; slot = (slot + 1) & mask, probes++) {
+            int index = buffer.getInt(HEADER + 4 * slot);
+            if(index == 0) return null;
+            int entry = entries + ENTRY * (index - 1);
+            if(buffer.getInt(entry) != hash) continue;
+            if(bytes == null) bytes = key.getBytes(StandardCharsets.UTF_8);
+            if(this.equals(buffer.getInt(entry + 4), buffer.getInt(entry + 8), bytes))
+                return this.read(buffer.getInt(entry + 12), buffer.getInt(entry + 16));
+        }
+        return null;
+    }
+
+    private boolean equals(int offset, int length, byte[] bytes){
+        if(length != bytes.length) return false;
+        for (int i = 0; i < length; i++) {
+            if(buffer.get(data + offset + i) != bytes[i]) return false;
+        }
+        return true;
+    }
+
+    private String read(int offset, int length){
+        byte[] bytes = new byte[length];
+        ByteBuffer view = buffer.duplicate();
+        view.position(data + offset);
+        view.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static int mix(int hash){
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * 将文本写入为语言包文件。
+     * @param texts 所有文本
+     * @param file 输出文件
+     * @throws IOException 写入失败
+     */
+    public static void write(Map<String, String> texts, File file) throws IOException {
+        Map<String, String> sorted = new TreeMap<>(texts);
+        int count = sorted.size();
+        int slots = Integer.highestOneBit(Math.max(count, 1) * 2 - 1) << 1;
+        int[] table = new int[slots];
+        ByteArrayOutputStream strings = new ByteArrayOutputStream();
+        ByteArrayOutputStream entryBytes = new ByteArrayOutputStream(ENTRY * count);
+        DataOutputStream entryOut = new DataOutputStream(entryBytes);
+        int index = 0;
+        for (Map.Entry<String, String> entry : sorted.entrySet()) {
+            byte[] key = entry.getKey().getBytes(StandardCharsets.UTF_8);
+            byte[] value = entry.getValue().getBytes(StandardCharsets.UTF_8);
+            int hash = entry.getKey().hashCode();
+            entryOut.writeInt(hash);
+            entryOut.writeInt(strings.size());
+            entryOut.writeInt(key.length);
+            strings.write(key);
+            entryOut.writeInt(strings.size());
+            entryOut.writeInt(value.length);
+            strings.write(value);
+            int slot = mix(hash) & (slots - 1);
+            while (table[slot] != 0) slot = (slot + 1) & (slots - 1);
+            table[slot] = ++index;
+        }
+        try (OutputStream stream = Files.newOutputStream(file.toPath());
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream))){
+            out.writeInt(MAGIC);
+            out.writeInt(count);
+            out.writeInt(slots);
+            for (int slot : table) out.writeInt(slot);
+            entryBytes.writeTo(out);
+            strings.writeTo(out);
+        }
+    }
+
+    /**
+     * 将目录下所有语言文件转换为语言包。
+     * @param args 语言文件目录、输出目录
+     * @throws IOException 读取或写入失败
+     */
+    public static void main(String[] args) throws IOException {
+        if(args.length != 2){
+            System.err.println("用法：LanguagePack <语言文件目录> <输出目录>");
+            System.exit(1);
+        }
+        File resources = new File(args[0]), output = new File(args[1]);
+        File[] files = resources.listFiles((dir, name) -> name.startsWith("language") && name.endsWith(".properties"));
+        if(files == null || files.length == 0)
+            throw new IOException("目录 "+resources+" 下没有找到语言文件！");
+        if(!output.isDirectory() && !output.mkdirs())
+            throw new IOException("无法创建目录 "+output);
+        Properties defaults = new Properties();
+        File base = new File(resources, "language.properties");
+        if(base.isFile()) load(base, defaults);
+        for (File file : files) {
+            Properties properties = new Properties(defaults);
+            load(file, properties);
+            Map<String, String> texts = new TreeMap<>();
+            for (String key : properties.stringPropertyNames()) texts.put(key, properties.getProperty(key));
+            String name = file.getName();
+            write(texts, new File(output, name.substring(0, name.length() - ".properties".length()) + SUFFIX));
+        }
+    }
+
+    private static void load(File file, Properties properties) throws IOException {
+        try (InputStream stream = Files.newInputStream(file.toPath())){
+            properties.load(stream);
+        }
+    }
+}
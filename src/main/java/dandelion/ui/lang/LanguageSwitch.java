@@ -11,4 +11,14 @@ package dandelion.ui.lang;
 public interface LanguageSwitch {
 
     void switchLanguage(String language);
+
+    /**
+     * 预先解析指定语言下的文本和尺寸，此方法可以在非EDT线程中调用，
+     * 它不会修改界面，之后在EDT中调用<code>switchLanguage()</code>
+     * 时会直接使用预先计算好的结果。
+     * @param language 语言
+     *
+     * @since 1.2
+     */
+    default void prepareLanguage(String language){ }
 }
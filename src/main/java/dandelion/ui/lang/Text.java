@@ -4,20 +4,70 @@ package dandelion.ui.lang;
  * 包含参数替换的文本类型，用于i18n多语言切换。某些组件可以使用
  * 该类型作为参数。
  *
+ * <p>
+ * 文本创建后不可修改，它会记住最近一次解析出的语言和结果，同一语言
+ * 下重复解析时直接返回结果，语言文件重新加载后缓存自动失效。
+ *
  * @author Ketuer
  * @since 1.0
  */
 public class Text {
-    String text;
-    Object[] objects;
+    final String text;
+    final Object[] objects;
+    final TextKey key;
+    private volatile Resolved resolved;
 
     public Text(String text, Object... objects){
-        this.objects = objects;
+        this(text, null, objects);
+    }
+
+    /**
+     * 使用生成的键常量创建文本，查找时直接使用键的编号。
+     * @param key 键
+     * @param objects 参数
+     *
+     * @since 1.2
+     */
+    public Text(TextKey key, Object... objects){
+        this(key.getName(), key, objects);
+    }
+
+    private Text(String text, TextKey key, Object[] objects){
         this.text = text;
+        this.key = key;
+        this.objects = objects == null || objects.length == 0 ? objects : objects.clone();
+    }
+
+    /**
+     * 解析为对应语言的字符串，结果会被缓存。
+     * @param language 语言
+     * @return 完整内容
+     */
+    String resolve(String language){
+        int version = LanguageCatalog.version();
+        Resolved resolved = this.resolved;
+        if(resolved != null && resolved.version == version && resolved.language.equals(language))
+            return resolved.value;
+        LanguageCatalog catalog = LanguageCatalog.of(language);
+        String value = key != null ? catalog.format(key, objects) : catalog.format(text, objects);
+        this.resolved = new Resolved(language, version, value);
+        return value;
     }
 
     @Override
     public String toString() {
         return text;
     }
+
+    private static final class Resolved {
+        final String language;
+        final int version;
+        final String value;
+
+        Resolved(String language, int version, String value){
+            this.language = language;
+            this.version = version;
+            this.value = value;
+        }
+    }
 }
@@ -0,0 +1,60 @@
+package dandelion.ui.lang;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 语言文件中的键，每个键在创建时会分配一个连续的整数编号，i18n会使用
+ * 这个编号在每种语言的文本表中直接通过数组下标查找，而不需要再进行字
+ * 符串哈希。一般不需要手动创建，可以使用{@link KeyGenerator}根据语言
+ * 文件生成所有键的常量，这样键名写错时会直接编译失败。
+ *
+ * @author Ketuer
+ * @since 1.2
+ */
+public final class TextKey {
+    private static final Map<String, TextKey> keys = new ConcurrentHashMap<>();
+    private static final AtomicInteger counter = new AtomicInteger();
+
+    private final int id;
+    private final String name;
+
+    private TextKey(int id, String name){
+        this.id = id;
+        this.name = name;
+    }
+
+    /**
+     * 获取对应名称的键，相同名称始终返回同一个实例。
+     * @param name 键名称
+     * @return 键
+     */
+    public static TextKey of(String name){
+        if(name == null) throw new NullPointerException("键名称不能为空！");
+        TextKey key = keys.get(name);
+        if(key == null) key = keys.computeIfAbsent(name, n -> new TextKey(counter.getAndIncrement(), n));
+        return key;
+    }
+
+    /**
+     * 当前已创建的键数量，同时也是下一个键的编号。
+     * @return 键数量
+     */
+    static int count(){
+        return counter.get();
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
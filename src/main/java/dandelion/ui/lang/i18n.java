@@ -1,9 +1,6 @@
 package dandelion.ui.lang;
 
-import java.nio.charset.StandardCharsets;
-import java.util.Locale;
-import java.util.MissingResourceException;
-import java.util.ResourceBundle;
+import java.io.File;
 
 /**
  * 国际化操作类，使用此类来实现国际化，一般只用作内部实现调用，
@@ -27,11 +24,24 @@ public class i18n {
     }
 
     public static String format(Text text){
-        return format(text.text, defaultLanguage, text.objects);
+        return text.resolve(defaultLanguage);
     }
 
     public static String format(Text text, String lang){
-        return format(text.text, lang, text.objects);
+        return text.resolve(lang);
+    }
+
+    /**
+     * 根据键的编号直接查找对应语言的文本并格式化。
+     * @param key 键
+     * @param lang 语言
+     * @param params 参数
+     * @return 完整内容
+     *
+     * @since 1.2
+     */
+    public static String format(TextKey key, String lang, Object... params){
+        return LanguageCatalog.of(lang).format(key, params);
     }
 
     public static String format(String text, Object... params){
@@ -39,19 +49,86 @@ public class i18n {
     }
 
     /**
-     * 根据本地化文件和对应参数，对字符串进行格式化
+     * 根据本地化文件和对应参数，对字符串进行格式化，每种语言的文件只会
+     * 加载一次，文本的格式化模板也会被缓存。
      * @param text 待格式化字符串
      * @param params 参数
      * @return 完整内容
      */
     public static String format(String text, String lang, Object... params){
-        Locale locale = new Locale(lang);
-        try{
-            ResourceBundle resourceBundle = ResourceBundle.getBundle("language", locale);
-            String str = resourceBundle.getString(text);
-            return String.format(str, params);
-        }catch (MissingResourceException e){
-            return text;
-        }
+        return LanguageCatalog.of(lang).format(text, params);
+    }
+
+    /**
+     * 清空已缓存的语言文件，下次格式化时会重新读取。修改了语言文件后
+     * 可以调用此方法使其生效。
+     *
+     * @since 1.2
+     */
+    public static void reload(){
+        LanguageCatalog.clear();
+    }
+
+    /**
+     * 设置二进制语言包所在的目录，设置后会优先从该目录映射语言包，不再解析
+     * 语言文件，设置为null则恢复使用语言文件。语言包可以通过
+     * {@link LanguagePack}在构建时生成。
+     * @param directory 语言包目录
+     *
+     * @since 1.2
+     */
+    public static void setLanguagePackDirectory(File directory){
+        LanguageCatalog.setPackDirectory(directory);
+    }
+
+    /**
+     * 释放某种语言已加载的文本，长时间不再使用的语言可以通过此方法
+     * 释放，再次使用时会自动重新加载。
+     * @param language 语言
+     *
+     * @since 1.2
+     */
+    public static void evictLanguage(String language){
+        LanguageCatalog.evict(language);
+    }
+
+    /**
+     * 设置每种语言缓存的不存在键的数量上限，默认为4096。
+     * @param size 数量上限
+     *
+     * @since 1.2
+     */
+    public static void setMissingKeyCacheSize(int size){
+        LanguageCatalog.setMissingCapacity(size);
+    }
+
+    /**
+     * 获取每种语言缓存的不存在键的数量上限
+     * @return 数量上限
+     *
+     * @since 1.2
+     */
+    public static int getMissingKeyCacheSize(){
+        return LanguageCatalog.getMissingCapacity();
+    }
+
+    /**
+     * 获取不存在的键命中缓存的次数，命中时不会再查找语言文件。
+     * @return 命中次数
+     *
+     * @since 1.2
+     */
+    public static long getMissingKeyHits(){
+        return LanguageCatalog.getMissingHits();
+    }
+
+    /**
+     * 获取不存在的键未命中缓存的次数，也就是实际查找语言文件后才确认不存在的次数。
+     * @return 未命中次数
+     *
+     * @since 1.2
+     */
+    public static long getMissingKeyMisses(){
+        return LanguageCatalog.getMissingMisses();
     }
 }
@@ -2,18 +2,20 @@ package dandelion.ui.tip;
 
 import dandelion.ui.color.ColorConfig;
 import dandelion.ui.color.ColorSwitch;
+import dandelion.ui.color.Palette;
 import dandelion.ui.component.RoundBorder;
 import dandelion.ui.gui.Gui;
 
 import javax.swing.*;
 import java.awt.*;
-import java.util.HashMap;
-import java.util.Map;
 
 public abstract class Tip extends JDialog implements ColorSwitch, RoundBorder {
 
     int arc = 19;
-    private final Map<String, TipColorConfig> colorConfigMap = new HashMap<>();
+    private static final Palette<TipColorConfig> DEFAULT_PALETTE = Palette.<TipColorConfig>empty()
+            .with(ColorSwitch.LIGHT, new TipColorConfig(Color.lightGray, ColorSwitch.LIGHT.getBackground()))
+            .with(ColorSwitch.DARK, new TipColorConfig(Color.darkGray, ColorSwitch.DARK.getBackground()));
+    private Palette<TipColorConfig> palette = DEFAULT_PALETTE;
     private Color borderColor;
 
     public Tip(Gui parent, int width, int height, boolean modal){
@@ -26,9 +28,7 @@ public abstract class Tip extends JDialog implements ColorSwitch, RoundBorder {
         this.getRootPane().setOpaque (false);
         this.setBackground(new Color (0, 0, 0, 0));
         this.setContentPane(new TipPanel());
-        TipColorConfig def = new TipColorConfig(Color.lightGray, ColorSwitch.LIGHT.getBackground());
-        this.registerColorConfig(ColorSwitch.LIGHT, def);
-        this.registerColorConfig(ColorSwitch.DARK, new TipColorConfig(Color.darkGray, ColorSwitch.DARK.getBackground()));
+        TipColorConfig def = DEFAULT_PALETTE.get(ColorSwitch.LIGHT);
 
         this.getContentPane().setBackground(def.backgroundColor);
         this.borderColor = def.borderColor;
@@ -83,7 +83,7 @@ public abstract class Tip extends JDialog implements ColorSwitch, RoundBorder {
     }
 
     public void registerColorConfig(ColorConfig config, TipColorConfig tipColorConfig){
-        this.colorConfigMap.put(config.getName(), tipColorConfig);
+        this.palette = palette.with(config, tipColorConfig);
     }
 
     /**
@@ -102,7 +102,7 @@ public abstract class Tip extends JDialog implements ColorSwitch, RoundBorder {
 
     @Override
     public void switchColor(ColorConfig config) {
-        TipColorConfig colorConfig = colorConfigMap.get(config.getName());
+        TipColorConfig colorConfig = palette.get(config);
         this.getContentPane().setBackground(colorConfig.backgroundColor);
         borderColor = colorConfig.borderColor;
         for (Component c : this.getContentPane().getComponents()){
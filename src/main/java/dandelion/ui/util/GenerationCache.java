@@ -0,0 +1,96 @@
+package dandelion.ui.util;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 分代的线程安全缓存，不需要记录访问顺序。缓存分为新旧两代，新一代写满
+ * 后整体成为旧的一代，原来的旧一代被丢弃；在旧一代中命中的条目会重新写
+ * 入新一代，经常使用的条目因此不会被淘汰。
+ *
+ * <p>
+ * 包括从旧一代提升的条目在内，每次写入前都会检查新一代的大小，所以缓存
+ * 最多保存两倍上限数量的条目，多个线程同时写入时最多再多出正在写入的线
+ * 程数量。
+ *
+ * @param <K> 键类型
+ * @param <V> 值类型
+ *
+ * @author Ketuer
+ * @since 1.2
+ */
+public final class GenerationCache<K, V> {
+    private volatile int capacity;
+    private volatile Map<K, V> current = new ConcurrentHashMap<>();
+    private volatile Map<K, V> previous = new ConcurrentHashMap<>();
+
+    /**
+     * 创建缓存
+     * @param capacity 每一代最多保存的条目数量
+     */
+    public GenerationCache(int capacity){
+        this.setCapacity(capacity);
+    }
+
+    /**
+     * 查找条目，在旧一代中找到时会将其提升到新一代
+     * @param key 键
+     * @return 值，不存在时返回null
+     */
+    public V get(K key){
+        V value = current.get(key);
+        if(value == null){
+            value = previous.get(key);
+            if(value != null) this.put(key, value);
+        }
+        return value;
+    }
+
+    /**
+     * 写入条目，新一代已满时先进行换代
+     * @param key 键
+     * @param value 值
+     */
+    public void put(K key, V value){
+        Map<K, V> map = current;
+        if(map.size() >= capacity) map = this.rotate(map);
+        map.put(key, value);
+    }
+
+    private synchronized Map<K, V> rotate(Map<K, V> full){
+        if(current == full){
+            previous = full;
+            current = new ConcurrentHashMap<>();
+        }
+        return current;
+    }
+
+    /**
+     * 设置每一代最多保存的条目数量，减小后在下一次写入时生效
+     * @param capacity 数量
+     */
+    public void setCapacity(int capacity){
+        if(capacity < 1) throw new IllegalArgumentException("缓存大小必须大于0！");
+        this.capacity = capacity;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * 获取两代中保存的条目总数，提升过的条目会被计算两次
+     * @return 数量
+     */
+    public int size(){
+        return current.size() + previous.size();
+    }
+
+    /**
+     * 清空缓存
+     */
+    public synchronized void clear(){
+        current = new ConcurrentHashMap<>();
+        previous = new ConcurrentHashMap<>();
+    }
+}
@@ -0,0 +1,140 @@
+package dandelion.ui.image;
+
+import com.sun.net.httpserver.HttpServer;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.*;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * 磁盘缓存测试，使用本机的HTTP服务器代替真实的图片服务器，检查条件请求、
+ * 图片更新、损坏文件的处理、淘汰以及目录权限。不依赖测试框架，直接运行
+ * main方法，失败时抛出AssertionError。
+ *
+ * @author Ketuer
+ * @since 1.2
+ */
+public class DiskImageCacheTest {
+    private static final AtomicInteger requests = new AtomicInteger();
+    private static final AtomicInteger notModified = new AtomicInteger();
+    private static volatile byte[] image;
+    private static volatile String etag;
+
+    public static void main(String[] args) throws Exception {
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> {
+            requests.incrementAndGet();
+            String tag = etag;
+            if(tag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))){
+                notModified.incrementAndGet();
+                exchange.sendResponseHeaders(304, -1);
+            }else {
+                byte[] body = image;
+                exchange.getResponseHeaders().set("ETag", tag);
+                exchange.sendResponseHeaders(200, body.length);
+                try (OutputStream output = exchange.getResponseBody()){
+                    output.write(body);
+                }
+            }
+            exchange.close();
+        });
+        server.start();
+        File directory = Files.createTempDirectory("dandelion-test").toFile();
+        File cacheDirectory = new File(directory, "cache");
+        try {
+            String base = "http://127.0.0.1:" + server.getAddress().getPort() + "/";
+            run(cacheDirectory, base);
+            System.out.println("全部通过");
+        }finally {
+            server.stop(0);
+            try (Stream<Path> paths = Files.walk(directory.toPath())){
+                paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+            }
+        }
+    }
+
+    private static void run(File directory, String base) throws Exception {
+        URL url = new URL(base + "icon.png");
+        serve(4, 3, "\"v1\"");
+        List<URL> changed = new ArrayList<>();
+
+        //第一次读取从服务器下载
+        BufferedImage first = cache(directory, changed).read(url);
+        check(first.getWidth() == 4 && first.getHeight() == 3, "下载的图片尺寸错误");
+        check(requests.get() == 1, "第一次读取应该请求服务器");
+        if(FileSystems.getDefault().supportedFileAttributeViews().contains("posix")){
+            String permissions = PosixFilePermissions.toString(Files.getPosixFilePermissions(directory.toPath()));
+            check(permissions.equals("rwx------"), "缓存目录的权限错误：" + permissions);
+        }
+
+        //重新启动后使用缓存，并发送条件请求，每次运行只校验一次
+        DiskImageCache cache = cache(directory, changed);
+        BufferedImage cached = cache.read(url);
+        check(cached.getWidth() == 4 && cached.getRGB(1, 1) == first.getRGB(1, 1), "缓存的图片与下载的不同");
+        check(requests.get() == 2 && notModified.get() == 1, "应该发送条件请求并收到304");
+        cache.read(url);
+        check(requests.get() == 2, "同一次运行中不应该重复校验");
+        check(changed.isEmpty(), "图片没有变化时不应该通知");
+
+        //服务器上的图片更新后，先返回旧图片，校验后通知调用者
+        serve(5, 5, "\"v2\"");
+        BufferedImage stale = cache(directory, changed).read(url);
+        check(stale.getWidth() == 4, "应该先返回缓存的图片");
+        check(changed.size() == 1 && changed.get(0).equals(url), "图片更新后应该通知调用者");
+        check(cache(directory, changed).read(url).getWidth() == 5, "更新后的图片没有写入缓存");
+
+        //头部尺寸被篡改的数据文件会被忽略，重新下载
+        int before = requests.get();
+        File[] data = directory.listFiles((dir, name) -> name.endsWith(".img"));
+        check(data != null && data.length > 0, "没有找到图片数据文件");
+        for (File file : data){
+            try (DataOutputStream output = new DataOutputStream(new FileOutputStream(file))){
+                output.writeInt(0x444C4931);
+                output.writeInt(100000);
+                output.writeInt(100000);
+                output.writeBoolean(true);
+                output.write(new byte[16]);
+            }
+        }
+        check(cache(directory, changed).read(url).getWidth() == 5, "损坏的文件没有重新下载");
+        check(requests.get() == before + 1, "损坏的文件应该重新请求服务器");
+
+        //超出预算时图片数据和指向它的索引一起被淘汰
+        DiskImageCache small = new DiskImageCache(directory, 1, Runnable::run, changed::add);
+        for (int i = 0; i < 3; i++){
+            serve(6 + i, 6, "\"s" + i + "\"");
+            small.read(new URL(base + "small" + i + ".png"));
+        }
+        File[] indexes = directory.listFiles((dir, name) -> name.endsWith(".idx"));
+        check(indexes != null && indexes.length == 0, "淘汰数据后索引文件没有删除");
+    }
+
+    private static DiskImageCache cache(File directory, List<URL> changed){
+        return new DiskImageCache(directory, 1024 * 1024, Runnable::run, changed::add);
+    }
+
+    private static void serve(int width, int height, String tag) throws IOException {
+        BufferedImage source = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        for (int y = 0; y < height; y++)
+            for (int x = 0; x < width; x++) source.setRGB(x, y, 0xff000000 | (x * 40) << 16 | (y * 40) << 8 | width);
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ImageIO.write(source, "png", output);
+        image = output.toByteArray();
+        etag = tag;
+    }
+
+    private static void check(boolean condition, String message){
+        if(!condition) throw new AssertionError(message);
+    }
+}